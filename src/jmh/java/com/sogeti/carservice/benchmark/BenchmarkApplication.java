@@ -0,0 +1,104 @@
+package com.sogeti.carservice.benchmark;
+
+import com.sogeti.carservice.CarServiceApplication;
+import com.sogeti.carservice.client.IAMFeignClient;
+import com.sogeti.carservice.dto.TokenValidationBatchRequestDTO;
+import com.sogeti.carservice.dto.TokenValidationBatchResultDTO;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Starts the real application against an in-memory H2 database with iam-service stubbed out, so the benchmarks
+ * measure this service only. Not a component, the test classpath scan must never pick it up.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        // Command line arguments, because application.yml would override default properties
+        return new SpringApplicationBuilder(CarServiceApplication.class, StubIamClient.class)
+                .web(webApplicationType)
+                .run(args.toArray(String[]::new));
+    }
+
+    // Accepts every token, optionally after a delay standing in for the iam-service round trip
+    static class StubIamFeignClient implements IAMFeignClient {
+
+        private final Duration latency;
+
+        StubIamFeignClient(Duration latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public ResponseEntity<String> validateToken(String authorizationHeader) {
+            simulateLatency();
+            return ResponseEntity.ok("valid");
+        }
+
+        @Override
+        public TokenValidationBatchResultDTO validateTokens(TokenValidationBatchRequestDTO request) {
+            simulateLatency();
+            return TokenValidationBatchResultDTO.builder()
+                    .valid(Collections.nCopies(request.getTokens().size(), true))
+                    .build();
+        }
+
+        private void simulateLatency() {
+            if (!latency.isZero()) {
+                try {
+                    Thread.sleep(latency.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    static class StubIamClient {
+
+        // Runs after the Feign client definitions are registered and swaps in a client that accepts every token.
+        // The name is kept because Spring Cloud OpenFeign looks the client up by it.
+        @Bean
+        static BeanDefinitionRegistryPostProcessor stubIamFeignClient() {
+            return new BeanDefinitionRegistryPostProcessor() {
+                @Override
+                public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                    String beanName = IAMFeignClient.class.getName();
+                    registry.removeBeanDefinition(beanName);
+                    RootBeanDefinition stub = new RootBeanDefinition(StubIamFeignClient.class);
+                    stub.getConstructorArgumentValues().addGenericArgumentValue("${benchmark.iam-latency:0ms}");
+                    registry.registerBeanDefinition(beanName, stub);
+                }
+
+                @Override
+                public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sogeti.carservice.benchmark;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.model.Car;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+final class BenchmarkData {
+
+    private static final String[] MAKES = {"Toyota", "Ford", "Suzuki", "Volkswagen", "Renault"};
+
+    private BenchmarkData() {
+    }
+
+    static Car car(long id) {
+        return Car.builder().id(id).make(MAKES[(int) (id % MAKES.length)]).model("Model " + id % 17)
+                .version(String.valueOf(2015 + id % 9)).numberOfDoors(id % 2 == 0 ? 5 : 3)
+                .co2Emission(90 + id % 60).grossPrice(18000 + id % 40 * 500).nettPrice(15000 + id % 40 * 420)
+                .revision(0L).build();
+    }
+
+    static CarDTO carDTO(long id) {
+        Car car = car(id);
+        return new CarDTO(car.getId(), car.getMake(), car.getModel(), car.getVersion(), car.getNumberOfDoors(),
+                car.getCo2Emission(), car.getGrossPrice(), car.getNettPrice(), car.getRevision());
+    }
+
+    static List<CarDTO> carDTOs(int size) {
+        return IntStream.rangeClosed(1, size).mapToObj(BenchmarkData::carDTO).toList();
+    }
+
+    // Unsaved cars for seeding the embedded database, ids come from the sequence
+    static List<Car> newCars(int size) {
+        return IntStream.rangeClosed(1, size).mapToObj(id -> {
+            Car car = car(id);
+            car.setId(null);
+            car.setRevision(null);
+            return car;
+        }).toList();
+    }
+}
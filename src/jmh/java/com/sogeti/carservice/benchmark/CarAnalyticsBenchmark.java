@@ -0,0 +1,73 @@
+package com.sogeti.carservice.benchmark;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.MakeEmissionDTO;
+import com.sogeti.carservice.dto.PriceBucketDTO;
+import com.sogeti.carservice.service.CarAnalyticsServiceImpl;
+import com.sogeti.carservice.service.CarService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarAnalyticsBenchmark {
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private List<CarDTO> cars;
+    private CarAnalyticsServiceImpl carAnalyticsService;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        cars = BenchmarkData.carDTOs(size);
+        // Only exportCars is used to load the columns
+        CarService carService = (CarService) Proxy.newProxyInstance(CarService.class.getClassLoader(),
+                new Class<?>[]{CarService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("exportCars")) {
+                        cars.forEach((Consumer<CarDTO>) args[0]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        carAnalyticsService = new CarAnalyticsServiceImpl(carService);
+        carAnalyticsService.getCo2EmissionByMake();
+    }
+
+    @Benchmark
+    public List<MakeEmissionDTO> co2EmissionByMake() {
+        return carAnalyticsService.getCo2EmissionByMake();
+    }
+
+    // What the report costs over the loaded objects, not counting the findAll that loads them
+    @Benchmark
+    public Map<String, Double> co2EmissionByMakeOverObjects() {
+        return cars.stream().collect(Collectors.groupingBy(CarDTO::getMake, Collectors.averagingDouble(CarDTO::getCo2Emission)));
+    }
+
+    @Benchmark
+    public List<PriceBucketDTO> grossPriceHistogram() {
+        return carAnalyticsService.getPriceHistogram("grossPrice", 1000);
+    }
+}
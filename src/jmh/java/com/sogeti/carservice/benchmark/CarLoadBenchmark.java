@@ -0,0 +1,82 @@
+package com.sogeti.carservice.benchmark;
+
+import com.sogeti.carservice.repository.CarRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/cars/{id} from 400 concurrent clients while every token validation waits 20 ms on iam-service.
+ * More clients than Tomcat's 200 platform workers, so those queue while virtual threads keep serving.
+ * Reports throughput and the latency distribution (p99 in the SampleTime results) per thread mode.
+ * The virtual mode needs Java 21: mvn -Pbenchmark verify -Djmh.args="CarLoadBenchmark -p threadMode=platform,virtual"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class CarLoadBenchmark {
+
+    private static final int ROWS = 100;
+
+    @Param({"platform"})
+    private String threadMode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest getCarById;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "--car-service.virtual-threads.enabled=" + "virtual".equals(threadMode),
+                "--benchmark.iam-latency=20ms",
+                // Every request goes to the (stubbed) iam-service, which is the blocking call under test
+                "--iam.token-cache.enabled=false",
+                "--spring.datasource.hikari.maximum-pool-size=40",
+                "--server.tomcat.max-connections=10000");
+        Long id = context.getBean(CarRepository.class).saveAll(BenchmarkData.newCars(ROWS)).get(0).getId();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        getCarById = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cars/" + id))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer benchmark-token").GET().build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] getCarById() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(getCarById, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
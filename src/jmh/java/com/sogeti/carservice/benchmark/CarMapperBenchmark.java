@@ -0,0 +1,40 @@
+package com.sogeti.carservice.benchmark;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.model.Car;
+import com.sogeti.carservice.utility.CarMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarMapperBenchmark {
+
+    private final CarMapper carMapper = Mappers.getMapper(CarMapper.class);
+    private final Car car = BenchmarkData.car(42);
+    private final CarDTO carDTO = BenchmarkData.carDTO(42);
+
+    @Benchmark
+    public CarDTO carToCarDTO() {
+        return carMapper.carToCarDTO(car);
+    }
+
+    @Benchmark
+    public Car carDTOToCar() {
+        return carMapper.carDTOToCar(carDTO);
+    }
+}
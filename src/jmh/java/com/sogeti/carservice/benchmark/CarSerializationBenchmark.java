@@ -0,0 +1,83 @@
+package com.sogeti.carservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.utility.CarJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectWriter listWriter;
+    private ObjectWriter cborListWriter;
+    private List<CarDTO> cars;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() {
+        // Same builder Spring Boot uses for the HTTP message converters
+        listWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(List.class);
+        cborListWriter = Jackson2ObjectMapperBuilder.cbor().build().writerFor(List.class);
+        cars = BenchmarkData.carDTOs(size);
+    }
+
+    @Benchmark
+    public byte[] serializeCarList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(cars);
+    }
+
+    // The response stream is reused so that only the allocations of the serialisation itself are measured
+    @Benchmark
+    public int serializeCarListToStream() throws IOException {
+        out.reset();
+        listWriter.writeValue(out, cars);
+        return out.size();
+    }
+
+    @Benchmark
+    public int serializeCarListToCbor() throws IOException {
+        out.reset();
+        cborListWriter.writeValue(out, cars);
+        return out.size();
+    }
+
+    // What CarJsonHttpMessageConverter writes for application/json, same bytes as serializeCarList
+    @Benchmark
+    public int writeCarList() throws IOException {
+        out.reset();
+        CarJsonWriter.writeCars(cars, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeCarColumns() throws IOException {
+        out.reset();
+        CarJsonWriter.writeColumns(cars, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,67 @@
+package com.sogeti.carservice.benchmark;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.service.CarService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarServiceBenchmark {
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    // 'none' measures the database round trip of getCarById, 'caffeine' the cache hit
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        // Servlet, the controllers need Spring MVC's content negotiation. Nothing is called over HTTP
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, "--spring.cache.type=" + cacheType);
+        CarRepository carRepository = context.getBean(CarRepository.class);
+        ids = carRepository.saveAll(BenchmarkData.newCars(rows)).stream().map(car -> car.getId()).toList();
+        carService = context.getBean(CarService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CarDTO> getAllCars() {
+        return carService.getAllCars();
+    }
+
+    @Benchmark
+    public CarDTO getCarById() {
+        return carService.getCarById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+}
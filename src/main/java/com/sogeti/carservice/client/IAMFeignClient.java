@@ -1,17 +1,24 @@
 package com.sogeti.carservice.client;
 
+import com.sogeti.carservice.dto.TokenValidationBatchRequestDTO;
+import com.sogeti.carservice.dto.TokenValidationBatchResultDTO;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 
 @Component
-@FeignClient(name = "iam-service", url = "${iam.service.url}") // Specify the Feign client name and the target service URL
+@FeignClient(name = "iam-service", url = "${iam.service.url}", configuration = IamFeignConfiguration.class) // Specify the Feign client name and the target service URL
 @Qualifier("iamFeignClient")
 public interface IAMFeignClient {
     @PostMapping("/api/accounts/token-validation") // Define the endpoint path
     ResponseEntity<String> validateToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader);
+
+    // Validates several tokens in one round trip, used by TokenValidationBatcher
+    @PostMapping("/api/accounts/token-validation/batch")
+    TokenValidationBatchResultDTO validateTokens(@RequestBody TokenValidationBatchRequestDTO request);
 }
@@ -0,0 +1,36 @@
+package com.sogeti.carservice.client;
+
+import feign.Capability;
+import feign.Client;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Feign configuration of {@link IAMFeignClient} only. Deliberately not a @Configuration, otherwise the component
+ * scan would apply it to every Feign client.
+ */
+public class IamFeignConfiguration {
+
+    @Bean
+    public Capability iamResilienceCapability(CircuitBreaker iamCircuitBreaker, Bulkhead iamBulkhead) {
+        return new ResilienceCapability(iamCircuitBreaker, iamBulkhead);
+    }
+
+    // Public because Feign calls the enrich methods reflectively
+    public static class ResilienceCapability implements Capability {
+
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+
+        public ResilienceCapability(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Client enrich(Client client) {
+            return new ResilientFeignClient(client, circuitBreaker, bulkhead);
+        }
+    }
+}
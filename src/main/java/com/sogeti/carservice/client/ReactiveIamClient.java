@@ -0,0 +1,38 @@
+package com.sogeti.carservice.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link IAMFeignClient} for the reactive profile.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveIamClient {
+
+    private final WebClient webClient;
+
+    public ReactiveIamClient(WebClient.Builder webClientBuilder, @Value("${iam.service.url}") String iamServiceUrl) {
+        this.webClient = webClientBuilder.baseUrl(iamServiceUrl).build();
+    }
+
+    /**
+     * Emits whether iam-service accepted the token, a definite 401/403 is false, any other failure is an error.
+     */
+    public Mono<Boolean> validateToken(String authorizationHeader) {
+        return webClient.post()
+                .uri("/api/accounts/token-validation")
+                .header(HttpHeaders.AUTHORIZATION, authorizationHeader)
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> response.getStatusCode() == HttpStatus.OK)
+                .onErrorResume(e -> e instanceof WebClientResponseException.Unauthorized
+                        || e instanceof WebClientResponseException.Forbidden, e -> Mono.just(false));
+    }
+}
@@ -0,0 +1,45 @@
+package com.sogeti.carservice.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+
+import java.io.IOException;
+
+/**
+ * Runs every request of the wrapped Feign client inside a bulkhead and a circuit breaker. A rejected call fails
+ * immediately with an IOException, which Feign turns into a RetryableException like any other connection failure.
+ */
+public class ResilientFeignClient implements Client {
+
+    private final Client delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientFeignClient(Client delegate, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        // The bulkhead is checked first so that calls rejected by it are not counted by the circuit breaker
+        CheckedSupplier<Response> call = Bulkhead.decorateCheckedSupplier(bulkhead,
+                CircuitBreaker.decorateCheckedSupplier(circuitBreaker, () -> delegate.execute(request, options)));
+        try {
+            return call.get();
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Load shedding while the service or what it depends on is saturated, see
+ * {@link com.sogeti.carservice.security.AdmissionControlFilter}.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = false;
+    // Car API requests in progress at once, including the time an NDJSON export streams.
+    // Change feed subscriptions are not counted, they stay open and are limited by the feed.
+    private int maxConcurrentRequests = 200;
+    // Threads already waiting for a Hikari connection, beyond this a new request would only add to the queue
+    private int maxPendingConnections = 10;
+    // Sent as Retry-After with the 503
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
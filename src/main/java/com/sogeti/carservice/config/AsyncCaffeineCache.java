@@ -0,0 +1,95 @@
+package com.sogeti.carservice.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Spring cache over a Caffeine AsyncCache, used in virtual thread mode. Spring's CaffeineCache runs the loader of
+ * a {@code @Cacheable(sync = true)} miss inside ConcurrentHashMap.compute, and a virtual thread blocking on the
+ * database there stays pinned to its carrier. Here the map only receives an incomplete future, the loader runs
+ * outside of it and concurrent callers for the same key wait on that future, which unmounts them.
+ */
+public class AsyncCaffeineCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final AsyncCache<Object, Object> cache;
+
+    public AsyncCaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AsyncCache<Object, Object> getNativeCache() {
+        return cache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        // A load still in progress is not waited for, as with CaffeineCache
+        return cache.synchronous().getIfPresent(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> result = cache.get(key, (k, executor) -> created);
+        if (result == created) {
+            try {
+                created.complete(toStoreValue(valueLoader.call()));
+            } catch (Exception e) {
+                // A failed future is removed from the cache, the next caller loads again
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return (T) fromStoreValue(result.join());
+        } catch (CompletionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cache.synchronous().put(key, toStoreValue(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return toValueWrapper(cache.synchronous().asMap().putIfAbsent(key, toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        // Also drops a load in progress, its result is then not cached
+        cache.synchronous().invalidate(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return cache.synchronous().asMap().remove(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = !cache.synchronous().asMap().isEmpty();
+        cache.synchronous().invalidateAll();
+        return notEmpty;
+    }
+}
@@ -0,0 +1,14 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the bulk car endpoints.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.batch")
+public class BatchProperties {
+    // Items written per transaction, each chunk is sent as JDBC batches of hibernate.jdbc.batch_size
+    private int chunkSize = 500;
+}
@@ -0,0 +1,24 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cluster wide invalidation of the car caches over PostgreSQL LISTEN/NOTIFY, see
+ * {@link com.sogeti.carservice.service.CarChangeNotifier}.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.cache-coherence")
+public class CacheCoherenceProperties {
+
+    private boolean enabled = false;
+    private String channel = "car_changed";
+    // How long the listener blocks waiting for notifications before it checks whether it should stop
+    private Duration pollTimeout = Duration.ofSeconds(1);
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+    // With read replicas, how far they may lag behind: a car cached from a replica before it replayed the change
+    // would stay stale, so the eviction is repeated after this long. Zero without replicas
+    private Duration replicaLag = Duration.ZERO;
+}
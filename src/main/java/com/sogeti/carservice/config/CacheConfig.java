@@ -0,0 +1,15 @@
+package com.sogeti.carservice.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Spring cache abstraction, the caches themselves are Caffeine caches configured under spring.cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // CarDTO by id, written through by the CarService mutations
+    public static final String CARS_CACHE = "cars";
+}
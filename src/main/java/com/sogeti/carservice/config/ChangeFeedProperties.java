@@ -0,0 +1,29 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Change log and Server-Sent Events feed of the car table, see
+ * {@link com.sogeti.carservice.service.CarChangeLog} and {@link com.sogeti.carservice.service.CarChangeFeed}.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.change-feed")
+public class ChangeFeedProperties {
+
+    // Changes older than this are deleted, a client resuming from before them gets 410 Gone
+    private Duration retention = Duration.ofDays(7);
+    // Changes read from the log at once, for a page of GET /api/cars/changes and when catching up a subscriber
+    private int pageSize = 500;
+    private int maxSubscribers = 1000;
+    // The feed also checks the log at this interval, for changes of other instances when cache coherence is off.
+    // Subscribers get a keep-alive comment at the same interval.
+    private Duration pollInterval = Duration.ofSeconds(15);
+    // A subscriber is closed after this long and reconnects with Last-Event-ID
+    private Duration subscriptionTimeout = Duration.ofMinutes(30);
+    // A subscriber whose pending events make no progress for this long is closed, so a stalled connection
+    // does not hold on to a sender thread and its backlog. It reconnects with Last-Event-ID.
+    private Duration sendTimeout = Duration.ofSeconds(30);
+}
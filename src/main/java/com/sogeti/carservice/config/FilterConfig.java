@@ -0,0 +1,76 @@
+package com.sogeti.carservice.config;
+
+import com.sogeti.carservice.security.AdmissionControlFilter;
+import com.sogeti.carservice.security.RateLimitFilter;
+import com.sogeti.carservice.security.TokenAuthenticationFilter;
+import com.sogeti.carservice.service.CarService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import java.util.function.IntSupplier;
+
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties({AdmissionControlProperties.class, RateLimitProperties.class})
+public class FilterConfig {
+
+    private static final String[] CAR_API = {"/api/cars", "/api/cars/*"};
+
+    @Bean
+    public FilterRegistrationBean<TokenAuthenticationFilter> tokenAuthenticationFilter(CarService carService,
+                                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<TokenAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new TokenAuthenticationFilter(carService, meterRegistry));
+        registration.addUrlPatterns(CAR_API);
+        // Right after the observation filter so rejected requests are still counted in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "car-service.admission", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionControlProperties properties, ObjectProvider<HikariDataSource> dataSource, Bulkhead iamBulkhead,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(properties, pendingConnections(dataSource), iamBulkhead, meterRegistry));
+        registration.addUrlPatterns(CAR_API);
+        // Before authentication, a shed request does not validate its token
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "car-service.rate-limit", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(properties, meterRegistry));
+        registration.addUrlPatterns(CAR_API);
+        // After authentication, the bucket is picked by the authenticated principal
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    // The auto-configured pool, or the primary pool with read replicas. Hikari creates its pool on first use.
+    private static IntSupplier pendingConnections(ObjectProvider<HikariDataSource> dataSource) {
+        HikariDataSource pool = dataSource.getIfUnique();
+        if (pool == null) {
+            return () -> 0;
+        }
+        return () -> {
+            HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+            return poolBean != null ? poolBean.getThreadsAwaitingConnection() : 0;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.sogeti.carservice.config;
+
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/**
+ * Resilience and metrics of the IAM Feign client. The circuit breaker and bulkhead are applied to the client by
+ * {@link com.sogeti.carservice.client.IamFeignConfiguration}, call latencies are recorded by feign-micrometer as
+ * http.client.requests.
+ */
+@Configuration
+@EnableConfigurationProperties(IamClientProperties.class)
+public class IamClientConfig {
+
+    public static final String IAM_SERVICE = "iam-service";
+
+    @Bean
+    public CircuitBreakerRegistry iamCircuitBreakerRegistry(IamClientProperties properties, MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallDuration())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+                // 401 and 403 are answers, only server errors tell that iam-service is in trouble
+                .recordResult(result -> result instanceof Response response && response.status() >= 500)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry iamBulkheadRegistry(IamClientProperties properties, MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                .maxWaitDuration(properties.getMaxWait())
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker iamCircuitBreaker(CircuitBreakerRegistry iamCircuitBreakerRegistry) {
+        return iamCircuitBreakerRegistry.circuitBreaker(IAM_SERVICE);
+    }
+
+    @Bean
+    public Bulkhead iamBulkhead(BulkheadRegistry iamBulkheadRegistry) {
+        return iamBulkheadRegistry.bulkhead(IAM_SERVICE);
+    }
+
+    // Utilisation of the pooled HC5 connection manager that Spring Cloud OpenFeign creates for the Feign clients
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> connectionManager.ifAvailable(manager -> {
+            if (manager instanceof ConnPoolControl<?> pool) {
+                poolGauge(registry, pool, "leased", PoolStats::getLeased);
+                poolGauge(registry, pool, "available", PoolStats::getAvailable);
+                poolGauge(registry, pool, "pending", PoolStats::getPending);
+                poolGauge(registry, pool, "max", PoolStats::getMax);
+            }
+        });
+    }
+
+    private static void poolGauge(MeterRegistry registry, ConnPoolControl<?> pool, String state,
+                                  Function<PoolStats, Integer> value) {
+        Gauge.builder("feign.client.connections", pool, p -> value.apply(p.getTotalStats()))
+                .description("Connections of the Feign HTTP client pool")
+                .tag("state", state)
+                .register(registry);
+    }
+}
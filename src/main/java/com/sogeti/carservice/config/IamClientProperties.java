@@ -0,0 +1,27 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker and bulkhead around the calls to iam-service. Pool size and timeouts of the underlying
+ * HTTP client are the spring.cloud.openfeign properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "iam.client")
+public class IamClientProperties {
+    // Percentage of failed calls within the sliding window that opens the circuit
+    private float failureRateThreshold = 50;
+    // Calls slower than this count as slow, enough of them open the circuit as well
+    private Duration slowCallDuration = Duration.ofSeconds(2);
+    private float slowCallRateThreshold = 80;
+    private int slidingWindowSize = 50;
+    private int minimumNumberOfCalls = 20;
+    // How long the open circuit rejects calls before letting a few probe calls through
+    private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+    // Calls to iam-service in flight at once, further calls are rejected rather than queued for max-wait
+    private int maxConcurrentCalls = 64;
+    private Duration maxWait = Duration.ZERO;
+}
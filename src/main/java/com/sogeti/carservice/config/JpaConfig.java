@@ -0,0 +1,19 @@
+package com.sogeti.carservice.config;
+
+import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.repository.ReactiveCarRepository;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * JPA repositories of the servlet stack. The R2DBC repository shares the package and is left to the reactive profile.
+ */
+@Configuration
+@Profile("!reactive")
+@EnableJpaRepositories(basePackageClasses = CarRepository.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCarRepository.class))
+public class JpaConfig {
+}
@@ -0,0 +1,28 @@
+package com.sogeti.carservice.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.sogeti.carservice.utility.CarJsonHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+@Profile("!reactive")
+public class MessageConverterConfig {
+
+    // Spring Boot puts converter beans ahead of its defaults, so this one answers before Jackson for cars
+    @Bean
+    public CarJsonHttpMessageConverter carJsonHttpMessageConverter() {
+        return new CarJsonHttpMessageConverter();
+    }
+
+    // application/cbor for service-to-service callers, see static/schema/car.cddl. Takes the place of Spring's
+    // default CBOR converter, after the JSON ones, so JSON stays the default. The builder is a fresh prototype
+    // carrying the spring.jackson settings.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
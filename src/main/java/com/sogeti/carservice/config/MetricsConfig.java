@@ -0,0 +1,26 @@
+package com.sogeti.carservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics beyond the ones Spring Boot records out of the box (http.server.requests, JVM, GC, Hikari and
+ * spring.data.repository.invocations): @Timed service methods and the rows returned by repository queries.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Static, it post-processes the repository factory beans before the rest of this configuration is created
+    @Bean
+    public static RepositoryRowMetrics repositoryRowMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RepositoryRowMetrics(meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sogeti.carservice.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the read-only transactions of the current thread to the primary instead of a read replica. Meant for
+ * reads whose result is kept, such as caches and snapshots: read from a lagging replica, a stale row would stay
+ * there until that car changes again. Without read replicas it has no effect.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> reads) {
+        boolean outer = requested();
+        REQUESTED.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (!outer) {
+                REQUESTED.remove();
+            }
+        }
+    }
+
+    public static void run(Runnable reads) {
+        call(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    public static boolean requested() {
+        return REQUESTED.get() != null;
+    }
+}
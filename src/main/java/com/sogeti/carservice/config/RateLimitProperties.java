@@ -0,0 +1,32 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Token bucket per authenticated client, see {@link com.sogeti.carservice.security.RateLimitFilter}. A request
+ * takes the tokens of its endpoint class, a client may spend up to capacity at once and regains
+ * refill-per-second.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = false;
+    private int capacity = 100;
+    private double refillPerSecond = 50;
+    // GET /api/cars without a limit reads and serialises the whole catalogue, the NDJSON export included
+    private int listCost = 20;
+    // /api/cars/search and /api/cars/analytics/*
+    private int searchCost = 5;
+    // Bulk writes under /api/cars/batch
+    private int batchCost = 20;
+    // Lookup by id, paging with limit, single writes
+    private int defaultCost = 1;
+    // Clients tracked at once, the least recently seen are forgotten first
+    private long maxClients = 100_000;
+    // Buckets untouched for this long are full again anyway and are dropped, by default the time a refill takes
+    private Duration idleTimeout;
+}
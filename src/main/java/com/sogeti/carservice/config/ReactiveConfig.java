@@ -0,0 +1,29 @@
+package com.sogeti.carservice.config;
+
+import com.sogeti.carservice.security.ReactiveTokenAuthenticationFilter;
+import com.sogeti.carservice.service.ReactiveCarService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Web setup of the reactive profile, the servlet counterpart is {@link FilterConfig}.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise be picked as reactive server as well
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ReactiveTokenAuthenticationFilter reactiveTokenAuthenticationFilter(ReactiveCarService carService,
+                                                                               MeterRegistry meterRegistry) {
+        return new ReactiveTokenAuthenticationFilter(carService, meterRegistry);
+    }
+}
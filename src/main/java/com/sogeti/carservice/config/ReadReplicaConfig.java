@@ -0,0 +1,92 @@
+package com.sogeti.carservice.config;
+
+import com.sogeti.carservice.security.AuthenticatedPrincipal;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured DataSource with one that routes read-only transactions to the read
+ * replicas. CarService marks its read methods @Transactional(readOnly = true) for this.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "car-service.read-replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    // Migrations go to the primary directly, not through the routing proxy
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                     ReadReplicaProperties properties,
+                                                                     MeterRegistry meterRegistry) {
+        // Boot only instruments DataSource beans, the primary is one, the replica pools are not
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReadReplicaProperties.Replica replica : properties.getReplicas()) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername());
+            config.setPassword(replica.getPassword());
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setReadOnly(true);
+            config.setMetricsTrackerFactory(metrics);
+            // Start without the replica rather than failing startup, the health check brings it in later
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(primaryDataSource,
+                replicas, properties.getReadYourWritesWindow(), properties.getMaxWriters(), ReadReplicaConfig::currentPrincipal);
+        routingDataSource.startHealthChecks(properties.getHealthCheckInterval(), properties.getHealthCheckTimeout());
+        Gauge.builder("car.datasource.replicas.healthy", routingDataSource, ReadReplicaRoutingDataSource::healthyReplicas)
+                .description("Read replicas currently receiving reads")
+                .register(meterRegistry);
+        return routingDataSource;
+    }
+
+    // The authenticated caller of the request being served, null on threads outside a request
+    static String currentPrincipal() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object principal = attributes != null
+                ? attributes.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        return principal instanceof AuthenticatedPrincipal authenticated ? authenticated.name() : null;
+    }
+
+    // Defers fetching the physical connection to the first statement, by then the transaction is marked read-only
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,34 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas that serve the read-only transactions, see {@link ReadReplicaRoutingDataSource}. The primary is
+ * still configured under spring.datasource, the replicas share its Hikari settings.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.read-replicas")
+public class ReadReplicaProperties {
+
+    private boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration healthCheckTimeout = Duration.ofSeconds(1);
+    // A client's reads go to the primary for this long after its own write committed, so it sees its change
+    // despite replication lag. Zero always reads from the replicas.
+    private Duration readYourWritesWindow = Duration.ZERO;
+    // Clients whose recent write is remembered, the least recent beyond it read from the replicas again
+    private int maxWriters = 100_000;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,171 @@
+package com.sogeti.carservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else. Must be
+ * wrapped in a LazyConnectionDataSourceProxy: the read-only flag of a transaction is only known once it has
+ * begun, after the transaction manager asked for its connection.
+ * <p>
+ * Replicas are used round robin. One that fails a health check or a connection attempt is skipped until it
+ * passes a health check again, with no healthy replica the primary serves the reads.
+ * <p>
+ * Read-your-writes is tracked per writer: after a writer's commit only that writer's reads go to the primary for
+ * the window, everyone else keeps reading from the replicas. Work without a writer, outside a request, always
+ * reads from the replicas. Reads run through {@link PrimaryReads} always go to the primary.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long readYourWritesWindowMillis;
+    private final Supplier<String> currentWriter;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+    // Commit time per writer, entries outlive the window only until Caffeine evicts them
+    private final Cache<String, Long> lastWriteCommits;
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param currentWriter identifies who the current thread works for, null when nobody in particular
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow,
+                                        int maxWriters, Supplier<String> currentWriter) {
+        this(primary, replicas, readYourWritesWindow, maxWriters, currentWriter, Clock.systemUTC());
+    }
+
+    ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow,
+                                 int maxWriters, Supplier<String> currentWriter, Clock clock) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.readYourWritesWindowMillis = readYourWritesWindow.toMillis();
+        this.currentWriter = currentWriter;
+        this.clock = clock;
+        this.lastWriteCommits = Caffeine.newBuilder()
+                .maximumSize(maxWriters)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+    }
+
+    public void startHealthChecks(Duration interval, Duration timeout) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "read-replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(() -> checkHealth(timeout), 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PrimaryReads.requested()
+                && !withinReadYourWritesWindow()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.healthy) {
+                    try {
+                        return replica.dataSource.getConnection();
+                    } catch (SQLException e) {
+                        log.warn("Read replica unavailable, skipping it until the next successful health check", e);
+                        replica.healthy = false;
+                    }
+                }
+            }
+        }
+        return primaryConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        Connection connection = primary.getConnection();
+        if (readYourWritesWindowMillis > 0 && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            String writer = currentWriter.get();
+            if (writer != null) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastWriteCommits.put(writer, clock.millis());
+                    }
+                });
+            }
+        }
+        return connection;
+    }
+
+    private boolean withinReadYourWritesWindow() {
+        if (readYourWritesWindowMillis <= 0) {
+            return false;
+        }
+        String writer = currentWriter.get();
+        Long lastWriteCommit = writer != null ? lastWriteCommits.getIfPresent(writer) : null;
+        return lastWriteCommit != null && clock.millis() < lastWriteCommit + readYourWritesWindowMillis;
+    }
+
+    void checkHealth(Duration timeout) {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid((int) Math.max(1, timeout.toSeconds()));
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn("Read replica is {}", healthy ? "back, routing reads to it again" : "down, reads skip it");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.sogeti.carservice.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Records the rows each repository method returned, or changed for modifying queries, as car.repository.rows.
+ * Streams and reactive results are not counted, that would mean consuming them.
+ */
+public class RepositoryRowMetrics implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RepositoryRowMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            new RowCountInterceptor(repositoryInformation.getRepositoryInterface().getSimpleName(),
+                                    meterRegistry.getObject()))));
+        }
+        return bean;
+    }
+
+    static class RowCountInterceptor implements MethodInterceptor {
+
+        private final String repository;
+        private final MeterRegistry meterRegistry;
+
+        RowCountInterceptor(String repository, MeterRegistry meterRegistry) {
+            this.repository = repository;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            Integer rows = rowsOf(result, invocation.getMethod().isAnnotationPresent(Modifying.class));
+            if (rows != null) {
+                DistributionSummary.builder("car.repository.rows")
+                        .description("Rows returned or changed by a repository method")
+                        .tag("repository", repository)
+                        .tag("method", invocation.getMethod().getName())
+                        .register(meterRegistry)
+                        .record(rows);
+            }
+            return result;
+        }
+
+        private static Integer rowsOf(Object result, boolean modifying) {
+            if (result instanceof Collection<?> collection) {
+                return collection.size();
+            } else if (result instanceof Slice<?> slice) {
+                return slice.getNumberOfElements();
+            } else if (result instanceof Optional<?> optional) {
+                return optional.isPresent() ? 1 : 0;
+            } else if (modifying && result instanceof Number updated) {
+                return updated.intValue();
+            }
+            return null;
+        }
+    }
+}
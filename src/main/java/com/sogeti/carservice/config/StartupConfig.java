@@ -0,0 +1,60 @@
+package com.sogeti.carservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup-time switches of the fast-startup profile, see application-fast-startup.yml.
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
+    /**
+     * Creates the springdoc beans when they are first needed instead of during startup. Unlike
+     * spring.main.lazy-initialization the rest of the context is still created eagerly, a broken bean still fails
+     * the start and the first car request does not pay for it.
+     */
+    // Static, a BeanFactoryPostProcessor runs before the configuration class itself could be instantiated
+    @Bean
+    @ConditionalOnProperty(prefix = "car-service.startup", name = "lazy-api-docs", havingValue = "true")
+    public static BeanFactoryPostProcessor lazyApiDocsBeanFactoryPostProcessor() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                // @Bean methods are matched by the configuration class that declares them
+                String type = definition.getFactoryBeanName() != null
+                        ? beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName()
+                        : definition.getBeanClassName();
+                if (type != null && type.startsWith(SPRINGDOC_PACKAGE)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Shuts the service down as soon as it is ready. Used for the class data sharing training run, the JVM writes
+     * the archive of every class loaded during startup when it exits. Checked at runtime rather than with a
+     * condition, an AOT build fixes its conditions at build time but still needs a training run.
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> trainingRunExitListener() {
+        return event -> {
+            if (event.getApplicationContext().getEnvironment()
+                    .getProperty("car-service.startup.training-run", Boolean.class, false)) {
+                log.info("Training run complete, shutting down");
+                System.exit(SpringApplication.exit(event.getApplicationContext()));
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the micro-batching of iam-service token validations.
+ */
+@Data
+@ConfigurationProperties(prefix = "iam.token-batch")
+public class TokenBatchProperties {
+    // Requires the bulk validation endpoint on iam-service
+    private boolean enabled = false;
+    private int maxBatchSize = 50;
+    // How long the first token of a batch waits for others to join it
+    private Duration maxWait = Duration.ofMillis(5);
+    // Batches sent to iam-service at the same time, tokens arriving meanwhile form the next batch
+    private int maxConcurrentBatches = 4;
+}
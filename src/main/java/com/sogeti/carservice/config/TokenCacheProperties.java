@@ -0,0 +1,20 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the local cache holding iam-service token validation results.
+ */
+@Data
+@ConfigurationProperties(prefix = "iam.token-cache")
+public class TokenCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    // Upper bound for a positive entry, shortened further by the JWT 'exp' claim
+    private Duration ttl = Duration.ofMinutes(5);
+    // How long a rejected token is remembered before iam-service is asked again
+    private Duration negativeTtl = Duration.ofSeconds(10);
+}
@@ -0,0 +1,29 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Selects how bearer tokens are validated and configures the local JWKS verification mode.
+ */
+@Data
+@ConfigurationProperties(prefix = "iam.token-validation")
+public class TokenValidationProperties {
+
+    public enum Mode {
+        // Ask iam-service for every token that is not cached
+        REMOTE,
+        // Verify signature and expiry locally with the JWKS keys, iam-service is only used when keys are unavailable
+        LOCAL
+    }
+
+    private Mode mode = Mode.REMOTE;
+    // Spring resource location, e.g. classpath:jwks.json, file:/etc/car-service/jwks.json or an http(s) URL
+    private String jwksLocation;
+    private Duration jwksRefreshInterval = Duration.ofMinutes(10);
+    private List<String> algorithms = List.of("RS256");
+    private Duration clockSkew = Duration.ofSeconds(30);
+}
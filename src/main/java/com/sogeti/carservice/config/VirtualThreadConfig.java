@@ -0,0 +1,76 @@
+package com.sogeti.carservice.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves every request on its own virtual thread instead of Tomcat's bounded worker pool. The iam-service call
+ * and the JDBC queries block on the request thread, so they unmount the virtual thread instead of holding a
+ * platform thread. The project still compiles for Java 17, the JDK 21 API is therefore looked up reflectively.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "car-service.virtual-threads", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties({VirtualThreadProperties.class, CacheProperties.class})
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Also runs the StreamingResponseBody of the NDJSON export, which holds a JDBC cursor while it writes
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    // Replaces Spring Boot's CaffeineCacheManager with the same caches and spec, see AsyncCaffeineCache
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        String spec = cacheProperties.getCaffeine().getSpec();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(cacheProperties.getCacheNames().stream()
+                .map(name -> {
+                    AsyncCache<Object, Object> cache = (spec != null ? Caffeine.from(spec) : Caffeine.newBuilder()).buildAsync();
+                    CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+                    return new AsyncCaffeineCache(name, cache, true);
+                })
+                .toList());
+        return cacheManager;
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(VirtualThreadProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(properties.getPinnedThreshold(), meterRegistry);
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("car-service.virtual-threads.enabled requires Java 21, running on "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.sogeti.carservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the virtual thread execution mode, enabled by the virtual-threads profile.
+ */
+@Data
+@ConfigurationProperties(prefix = "car-service.virtual-threads")
+public class VirtualThreadProperties {
+    // Requires Java 21, startup fails on older runtimes
+    private boolean enabled = false;
+    // Carrier threads pinned at least this long are logged and counted
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+}
@@ -0,0 +1,44 @@
+package com.sogeti.carservice.controller;
+
+import com.sogeti.carservice.dto.MakeEmissionDTO;
+import com.sogeti.carservice.dto.PriceBucketDTO;
+import com.sogeti.carservice.service.CarAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "Car Analytics", description = "Aggregations over the car catalogue")
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/cars/analytics")
+// Behind TokenAuthenticationFilter like every other /api/cars endpoint
+public class CarAnalyticsController {
+
+    private final CarAnalyticsService carAnalyticsService;
+
+    public CarAnalyticsController(CarAnalyticsService carAnalyticsService) {
+        this.carAnalyticsService = carAnalyticsService;
+    }
+
+    @Operation(summary = "Average CO2 emission per make", security = @SecurityRequirement(name = "bearerToken"), description = "Number of cars and their average CO2 emission for every make")
+    @GetMapping("/co2-by-make")
+    public ResponseEntity<List<MakeEmissionDTO>> getCo2EmissionByMake() {
+        return ResponseEntity.status(HttpStatus.OK).body(carAnalyticsService.getCo2EmissionByMake());
+    }
+
+    @Operation(summary = "Price histogram", security = @SecurityRequirement(name = "bearerToken"), description = "Number of cars per price band of 'bucketWidth' over grossPrice or nettPrice")
+    @GetMapping("/price-histogram")
+    public ResponseEntity<List<PriceBucketDTO>> getPriceHistogram(@RequestParam(defaultValue = "grossPrice") String field,
+                                                                  @RequestParam(defaultValue = "5000") double bucketWidth) {
+        return ResponseEntity.status(HttpStatus.OK).body(carAnalyticsService.getPriceHistogram(field, bucketWidth));
+    }
+}
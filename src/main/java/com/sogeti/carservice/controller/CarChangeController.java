@@ -0,0 +1,70 @@
+package com.sogeti.carservice.controller;
+
+import com.sogeti.carservice.config.ChangeFeedProperties;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarChangePageDTO;
+import com.sogeti.carservice.exception.InvalidRequestException;
+import com.sogeti.carservice.service.CarChangeFeed;
+import com.sogeti.carservice.service.CarChangeLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Tag(name = "Car Changes", description = "Change data feed of the car catalogue")
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/cars/changes")
+// Behind TokenAuthenticationFilter like every other /api/cars endpoint
+public class CarChangeController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final CarChangeLog carChangeLog;
+    private final CarChangeFeed carChangeFeed;
+    private final ChangeFeedProperties properties;
+
+    public CarChangeController(CarChangeLog carChangeLog, CarChangeFeed carChangeFeed, ChangeFeedProperties properties) {
+        this.carChangeLog = carChangeLog;
+        this.carChangeFeed = carChangeFeed;
+        this.properties = properties;
+    }
+
+    @Operation(summary = "Car changes since a sequence number", security = @SecurityRequirement(name = "bearerToken"), description = "Creates, updates and deletes after 'since' in commit order, at most 'limit'. Continue with the returned lastSequence, 410 when the changes have expired and the cars have to be reloaded")
+    @GetMapping
+    public ResponseEntity<CarChangePageDTO> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(required = false) Integer limit) {
+        int pageSize = limit != null ? limit : properties.getPageSize();
+        if (since < 0 || pageSize < 1 || pageSize > properties.getPageSize()) {
+            throw new InvalidRequestException("since must not be negative and limit between 1 and "
+                    + properties.getPageSize());
+        }
+        List<CarChangeDTO> changes = carChangeLog.findChangesAfter(since, pageSize);
+        long lastSequence = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(CarChangePageDTO.builder().changes(changes).lastSequence(lastSequence).build());
+    }
+
+    @Operation(summary = "Stream car changes", security = @SecurityRequirement(name = "bearerToken"), description = "Server-Sent Events, one per change with its sequence number as event id. Starts after 'since' or Last-Event-ID when given, otherwise with the next change")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+        // EventSource sends Last-Event-ID on its own when it reconnects
+        Long position = lastEventId != null ? lastEventId : since;
+        if (position != null && position < 0) {
+            throw new InvalidRequestException("since must not be negative");
+        }
+        return carChangeFeed.subscribe(position);
+    }
+}
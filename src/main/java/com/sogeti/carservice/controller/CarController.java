@@ -1,92 +1,313 @@
 package com.sogeti.carservice.controller;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.sogeti.carservice.dto.BatchItemResultDTO;
 import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.dto.CarPatchDTO;
+import com.sogeti.carservice.dto.CarSearchCriteria;
+import com.sogeti.carservice.dto.CarSearchResultDTO;
+import com.sogeti.carservice.service.CarBatchService;
+import com.sogeti.carservice.service.CarCatalogueSnapshot;
 import com.sogeti.carservice.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.sogeti.carservice.controller.ETags.eTagOf;
+import static com.sogeti.carservice.controller.ETags.parseIfMatch;
+import static com.sogeti.carservice.controller.ETags.quote;
+import static com.sogeti.carservice.controller.ETags.withETag;
+import static com.sogeti.carservice.utility.CarJsonHttpMessageConverter.APPLICATION_CAR_COLUMNS_JSON;
+
 @Tag(name = "Car Management", description = "Car Management APIs")
+@Profile("!reactive")
 @RestController
 @RequestMapping("/api/cars")
+// Requests only get here after TokenAuthenticationFilter has validated their bearer token
 public class CarController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final CarService carService;
+    private final CarBatchService carBatchService;
+    private final CarCatalogueSnapshot catalogueSnapshot;
+    private final ContentNegotiationManager contentNegotiationManager;
+    private final ObjectMapper objectMapper;
+    // No flush per line, the generator and the response buffer decide when bytes go out
+    private final ObjectWriter ndjsonWriter;
 
     @Autowired
-    public CarController(CarService carService) {
+    public CarController(CarService carService, CarBatchService carBatchService,
+                         CarCatalogueSnapshot catalogueSnapshot, ContentNegotiationManager contentNegotiationManager,
+                         ObjectMapper objectMapper) {
         this.carService = carService;
+        this.carBatchService = carBatchService;
+        this.catalogueSnapshot = catalogueSnapshot;
+        this.contentNegotiationManager = contentNegotiationManager;
+        this.objectMapper = objectMapper;
+        this.ndjsonWriter = objectMapper.writerFor(CarDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @Operation(summary = "Receive All Car Details", security = @SecurityRequirement(name = "bearerToken"), description = "Receive All Car Details after authentication using JWT token")
     @GetMapping
-    public ResponseEntity<List<CarDTO>> getAllCars(HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token != null && carService.isValidToken(token)) {
-            return ResponseEntity.status(HttpStatus.OK).body(carService.getAllCars());
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    public ResponseEntity<List<CarDTO>> getAllCars(NativeWebRequest webRequest, HttpServletResponse response,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+            throws IOException, HttpMediaTypeNotAcceptableException {
+        MediaType representation = preferredRepresentation(webRequest);
+        if (MediaType.APPLICATION_JSON.equals(representation)) {
+            writeSnapshot(webRequest, response, acceptEncoding);
+            return null;
+        }
+        if (representation == null) {
+            throw new HttpMediaTypeNotAcceptableException(
+                    List.of(MediaType.APPLICATION_JSON, APPLICATION_CAR_COLUMNS_JSON, MediaType.APPLICATION_CBOR));
         }
+        String catalogueVersion = carService.getCatalogueVersion();
+        // Each representation gets its own strong entity tag, the columnar JSON and the CBOR bytes differ
+        String eTag = catalogueVersion != null
+                ? quote(catalogueVersion + (representation.equals(MediaType.APPLICATION_CBOR) ? "-cbor" : "-columns"))
+                : null;
+        // Answer 304 before the catalogue is loaded and serialised
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        // The content type the entity tag was chosen for, not whatever the converters would negotiate
+        return withETag(ResponseEntity.status(HttpStatus.OK).varyBy(HttpHeaders.ACCEPT).contentType(representation), eTag)
+                .body(carService.getAllCars());
+    }
+
+    @Operation(summary = "Receive a page of Car Details", security = @SecurityRequirement(name = "bearerToken"), description = "Receive up to 'limit' cars with an id greater than 'after', ordered by id")
+    @GetMapping(params = "limit")
+    public ResponseEntity<CarPageDTO> getCarsPage(@RequestParam int limit, @RequestParam(required = false) Long after) {
+        return ResponseEntity.status(HttpStatus.OK).body(carService.getCarsAfter(after, limit));
+    }
+
+    @Operation(summary = "Export All Car Details", security = @SecurityRequirement(name = "bearerToken"), description = "Stream all cars as newline delimited JSON, one car per line")
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCars() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                // Jackson puts a space between root values, each line already ends with its own newline
+                generator.setRootValueSeparator(null);
+                carService.exportCars(carDTO -> {
+                    try {
+                        ndjsonWriter.writeValue(generator, carDTO);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    @Operation(summary = "Search Car Details", security = @SecurityRequirement(name = "bearerToken"), description = "Filter cars by make, model, version, number of doors and CO2/price ranges (min/max), with page, size and sort parameters")
+    @GetMapping("/search")
+    public ResponseEntity<CarSearchResultDTO> searchCars(@ParameterObject CarSearchCriteria criteria,
+                                                         @ParameterObject @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.status(HttpStatus.OK).body(carService.searchCars(criteria, pageable));
     }
 
     @Operation(summary = "Create Car In Car Database", security = @SecurityRequirement(name = "bearerToken"), description = "Create Car after authentication using JWT token")
     @PostMapping
-    public ResponseEntity<CarDTO> createCar(@RequestBody CarDTO carDTO, HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token != null && carService.isValidToken(token)) {
-            return ResponseEntity.status(HttpStatus.OK).body(carService.createCar(carDTO));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+    public ResponseEntity<CarDTO> createCar(@RequestBody CarDTO carDTO) {
+        return ResponseEntity.status(HttpStatus.OK).body(carService.createCar(carDTO));
     }
 
     @Operation(summary = "Get specific car details", security = @SecurityRequirement(name = "bearerToken"), description = "Get car details after authentication using JWT token")
     @GetMapping("/{id}")
-    public ResponseEntity<CarDTO> getCarById(@PathVariable Long id, HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token != null && carService.isValidToken(token)) {
-            return ResponseEntity.status(HttpStatus.OK).body(carService.getCarById(id));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+    public ResponseEntity<CarDTO> getCarById(@PathVariable Long id) {
+        // A matching If-None-Match is answered with 304 by Spring MVC before the body is written
+        CarDTO carDTO = carService.getCarById(id);
+        return withETag(ResponseEntity.status(HttpStatus.OK), eTagOf(carDTO)).body(carDTO);
     }
 
     @Operation(summary = "Update specific car details", security = @SecurityRequirement(name = "bearerToken"), description = "Update car details after authentication using JWT token")
     @PutMapping("/{id}")
-    public ResponseEntity<CarDTO> updateCar(@PathVariable Long id, @RequestBody CarDTO carDTO, HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token != null && carService.isValidToken(token)) {
-            return ResponseEntity.status(HttpStatus.OK).body(carService.updateCar(id, carDTO));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    public ResponseEntity<CarDTO> updateCar(@PathVariable Long id, @RequestBody CarDTO carDTO,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            carDTO.setRevision(parseIfMatch(ifMatch));
+        }
+        CarDTO updatedCar = carService.updateCar(id, carDTO);
+        return withETag(ResponseEntity.status(HttpStatus.OK), eTagOf(updatedCar)).body(updatedCar);
+    }
+
+    @Operation(summary = "Partially update specific car details", security = @SecurityRequirement(name = "bearerToken"), description = "Update only the fields present in the request after authentication using JWT token")
+    @PatchMapping("/{id}")
+    public ResponseEntity<CarDTO> patchCar(@PathVariable Long id, @RequestBody CarPatchDTO carPatchDTO,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            carPatchDTO.setRevision(parseIfMatch(ifMatch));
         }
+        CarDTO patchedCar = carService.patchCar(id, carPatchDTO);
+        return withETag(ResponseEntity.status(HttpStatus.OK), eTagOf(patchedCar)).body(patchedCar);
     }
 
     @Operation(summary = "Delete specific car", security = @SecurityRequirement(name = "bearerToken"), description = "Delete car after authentication using JWT token")
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCar(@PathVariable Long id, HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token != null && carService.isValidToken(token)) {
-            carService.deleteCar(id);
-            return ResponseEntity.status(HttpStatus.OK).build();
+    public ResponseEntity<Void> deleteCar(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedRevision = ifMatch != null ? parseIfMatch(ifMatch) : null;
+        if (expectedRevision != null) {
+            carService.deleteCar(id, expectedRevision);
         } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            carService.deleteCar(id);
         }
+        return ResponseEntity.status(HttpStatus.OK).build();
+    }
+
+    @Operation(summary = "Create Cars In Bulk", security = @SecurityRequirement(name = "bearerToken"), description = "Create all cars of the array in chunked transactions and report the result per item")
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<BatchItemResultDTO>> createCars(@RequestBody List<CarDTO> carDTOs) {
+        return ResponseEntity.status(HttpStatus.OK).body(carBatchService.createCars(carDTOs.iterator()));
     }
 
-    private String extractToken(HttpServletRequest request) {
-        // Extract the token from the Authorization header
-        String authorizationHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            return authorizationHeader.substring("Bearer ".length());
+    @Operation(summary = "Create Cars In Bulk From A Stream", security = @SecurityRequirement(name = "bearerToken"), description = "Create cars read one per line from a newline delimited JSON body")
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResultDTO>> createCarsFromStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<CarDTO> carDTOs = readLines(request, CarDTO.class)) {
+            return ResponseEntity.status(HttpStatus.OK).body(carBatchService.createCars(carDTOs));
+        }
+    }
+
+    @Operation(summary = "Update Cars In Bulk", security = @SecurityRequirement(name = "bearerToken"), description = "Update all cars of the array, identified by their id, in chunked transactions")
+    @PutMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<BatchItemResultDTO>> updateCars(@RequestBody List<CarDTO> carDTOs) {
+        return ResponseEntity.status(HttpStatus.OK).body(carBatchService.updateCars(carDTOs.iterator()));
+    }
+
+    @Operation(summary = "Update Cars In Bulk From A Stream", security = @SecurityRequirement(name = "bearerToken"), description = "Update cars read one per line from a newline delimited JSON body")
+    @PutMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResultDTO>> updateCarsFromStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<CarDTO> carDTOs = readLines(request, CarDTO.class)) {
+            return ResponseEntity.status(HttpStatus.OK).body(carBatchService.updateCars(carDTOs));
+        }
+    }
+
+    @Operation(summary = "Delete Cars In Bulk", security = @SecurityRequirement(name = "bearerToken"), description = "Delete all cars whose id is in the array")
+    @DeleteMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<BatchItemResultDTO>> deleteCars(@RequestBody List<Long> ids) {
+        return ResponseEntity.status(HttpStatus.OK).body(carBatchService.deleteCars(ids.iterator()));
+    }
+
+    @Operation(summary = "Delete Cars In Bulk From A Stream", security = @SecurityRequirement(name = "bearerToken"), description = "Delete cars whose ids are read one per line from a newline delimited JSON body")
+    @DeleteMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResultDTO>> deleteCarsFromStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Long> ids = readLines(request, Long.class)) {
+            return ResponseEntity.status(HttpStatus.OK).body(carBatchService.deleteCars(ids));
+        }
+    }
+
+    /**
+     * Copies the already serialised catalogue to the response, no car is loaded or serialised per request.
+     */
+    private void writeSnapshot(WebRequest webRequest, HttpServletResponse response, String acceptEncoding) throws IOException {
+        CarCatalogueSnapshot.Snapshot snapshot = catalogueSnapshot.get();
+        boolean gzip = snapshot.gzip() != null && acceptsGzip(acceptEncoding);
+        // Each content coding is its own representation and gets its own strong entity tag
+        String eTag = quote(gzip ? snapshot.hash() + "-gzip" : snapshot.hash());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (webRequest.checkNotModified(eTag)) {
+            return;
+        }
+        byte[] body = gzip ? snapshot.gzip() : snapshot.json();
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * The most preferred of plain JSON, columnar JSON and CBOR, ordered the way message converters are chosen, or
+     * null when none of them is acceptable.
+     */
+    private MediaType preferredRepresentation(NativeWebRequest webRequest) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> acceptable = new ArrayList<>(contentNegotiationManager.resolveMediaTypes(webRequest));
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType mediaType : acceptable) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            if (mediaType.isCompatibleWith(APPLICATION_CAR_COLUMNS_JSON)) {
+                return APPLICATION_CAR_COLUMNS_JSON;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return MediaType.APPLICATION_CBOR;
+            }
         }
         return null;
     }
+
+    private <T> MappingIterator<T> readLines(HttpServletRequest request, Class<T> type) throws IOException {
+        // Items are parsed lazily while the chunks are written, the body is never held in memory as a whole
+        return objectMapper.readerFor(type).readValues(request.getInputStream());
+    }
+
+    /**
+     * True when gzip is an acceptable content coding. Naming gzip overrides {@code *}, q=0 refuses either.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean anyAccepted = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                return !refused(parts);
+            }
+            if (name.equals("*")) {
+                anyAccepted = !refused(parts);
+            }
+        }
+        return anyAccepted;
+    }
+
+    private static boolean refused(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
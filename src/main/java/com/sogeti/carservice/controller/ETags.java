@@ -0,0 +1,45 @@
+package com.sogeti.carservice.controller;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.exception.PreconditionFailedException;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong entity tags derived from the car revision, shared by the servlet and the reactive controller.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, String eTag) {
+        return eTag != null ? builder.eTag(eTag) : builder;
+    }
+
+    static String eTagOf(CarDTO carDTO) {
+        return carDTO != null && carDTO.getRevision() != null ? quote(carDTO.getRevision().toString()) : null;
+    }
+
+    static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Reads the expected revision from a strong If-Match value. {@code *} is {@link CarDTO#ANY_REVISION}, it still
+     * requires the car to exist.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        String value = ifMatch.trim();
+        if ("*".equals(value)) {
+            return CarDTO.ANY_REVISION;
+        }
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.valueOf(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not one of our entity tags, falls through to 412
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current revision");
+    }
+}
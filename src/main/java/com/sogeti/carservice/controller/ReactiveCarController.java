@@ -0,0 +1,87 @@
+package com.sogeti.carservice.controller;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.service.ReactiveCarService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.sogeti.carservice.controller.ETags.eTagOf;
+import static com.sogeti.carservice.controller.ETags.parseIfMatch;
+import static com.sogeti.carservice.controller.ETags.withETag;
+
+/**
+ * The /api/cars contract of {@link CarController} on WebFlux. Bulk, patch and search requests are served
+ * by the servlet stack only.
+ */
+@Tag(name = "Car Management", description = "Car Management APIs")
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/cars")
+// Requests only get here after ReactiveTokenAuthenticationFilter has validated their bearer token
+public class ReactiveCarController {
+
+    private final ReactiveCarService carService;
+
+    public ReactiveCarController(ReactiveCarService carService) {
+        this.carService = carService;
+    }
+
+    // Encoded element by element as a JSON array, or one line per car for application/x-ndjson
+    @Operation(summary = "Receive All Car Details", security = @SecurityRequirement(name = "bearerToken"), description = "Stream all cars, ordered by id")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, CarController.APPLICATION_NDJSON_VALUE})
+    public Flux<CarDTO> getAllCars() {
+        return carService.getAllCars();
+    }
+
+    @Operation(summary = "Receive a page of Car Details", security = @SecurityRequirement(name = "bearerToken"), description = "Receive up to 'limit' cars with an id greater than 'after', ordered by id")
+    @GetMapping(params = "limit")
+    public Mono<CarPageDTO> getCarsPage(@RequestParam int limit, @RequestParam(required = false) Long after) {
+        return carService.getCarsAfter(after, limit);
+    }
+
+    @Operation(summary = "Create Car In Car Database", security = @SecurityRequirement(name = "bearerToken"), description = "Create Car after authentication using JWT token")
+    @PostMapping
+    public Mono<CarDTO> createCar(@RequestBody CarDTO carDTO) {
+        return carService.createCar(carDTO);
+    }
+
+    @Operation(summary = "Get specific car details", security = @SecurityRequirement(name = "bearerToken"), description = "Get car details after authentication using JWT token")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<CarDTO>> getCarById(@PathVariable Long id) {
+        // A matching If-None-Match is answered with 304 by WebFlux before the body is written
+        return carService.getCarById(id)
+                .map(carDTO -> withETag(ResponseEntity.status(HttpStatus.OK), eTagOf(carDTO)).body(carDTO))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.OK).build());
+    }
+
+    @Operation(summary = "Update specific car details", security = @SecurityRequirement(name = "bearerToken"), description = "Update car details after authentication using JWT token")
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<CarDTO>> updateCar(@PathVariable Long id, @RequestBody CarDTO carDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            carDTO.setRevision(parseIfMatch(ifMatch));
+        }
+        return carService.updateCar(id, carDTO)
+                .map(updatedCar -> withETag(ResponseEntity.status(HttpStatus.OK), eTagOf(updatedCar)).body(updatedCar))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.OK).build());
+    }
+
+    @Operation(summary = "Delete specific car", security = @SecurityRequirement(name = "bearerToken"), description = "Delete car after authentication using JWT token")
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteCar(@PathVariable Long id,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedRevision = ifMatch != null ? parseIfMatch(ifMatch) : null;
+        return carService.deleteCar(id, expectedRevision)
+                .then(Mono.just(ResponseEntity.status(HttpStatus.OK).<Void>build()));
+    }
+}
@@ -0,0 +1,23 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDTO {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT, FAILED
+    }
+
+    // Position of the item in the request body
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+}
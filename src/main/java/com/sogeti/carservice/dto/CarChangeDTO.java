@@ -0,0 +1,27 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarChangeDTO {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    // Position in the change log, pass the last one seen as 'since' or Last-Event-ID to resume
+    private long sequence;
+    private Type type;
+    private Long id;
+    private Instant changedAt;
+    // The car as it is now, so a later change can already show here. Null once the car is deleted.
+    private CarDTO car;
+}
@@ -0,0 +1,18 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarChangePageDTO {
+    private List<CarChangeDTO> changes;
+    // Pass as 'since' to fetch the following changes, the requested 'since' again when there were none
+    private long lastSequence;
+}
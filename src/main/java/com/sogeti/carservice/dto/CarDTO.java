@@ -10,6 +10,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CarDTO {
+
+    // Expected revision of If-Match: *, matches any revision as long as the car exists
+    public static final long ANY_REVISION = -1;
+
     private Long id;
     private String make;
     private String model;
@@ -18,4 +22,6 @@ public class CarDTO {
     private double co2Emission;
     private double grossPrice;
     private double nettPrice;
+    // Sent back on update to detect concurrent modifications, also exposed as the ETag
+    private Long revision;
 }
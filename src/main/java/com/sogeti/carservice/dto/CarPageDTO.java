@@ -0,0 +1,18 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarPageDTO {
+    private List<CarDTO> cars;
+    // Pass as 'after' to fetch the next page, null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial update of a car, fields left null are not changed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarPatchDTO {
+    private String make;
+    private String model;
+    private String version;
+    private Integer numberOfDoors;
+    private Double co2Emission;
+    private Double grossPrice;
+    private Double nettPrice;
+    // Expected current revision, the patch is rejected when the car has changed since
+    private Long revision;
+}
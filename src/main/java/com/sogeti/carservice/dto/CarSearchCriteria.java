@@ -0,0 +1,24 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Bound from query parameters, null fields do not filter
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSearchCriteria {
+    private String make;
+    private String model;
+    private String version;
+    private Integer numberOfDoors;
+    private Double minCo2Emission;
+    private Double maxCo2Emission;
+    private Double minGrossPrice;
+    private Double maxGrossPrice;
+    private Double minNettPrice;
+    private Double maxNettPrice;
+}
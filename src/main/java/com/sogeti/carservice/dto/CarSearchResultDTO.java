@@ -0,0 +1,20 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSearchResultDTO {
+    private List<CarDTO> cars;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
@@ -0,0 +1,16 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MakeEmissionDTO {
+    private String make;
+    private long cars;
+    private double averageCo2Emission;
+}
@@ -0,0 +1,17 @@
+package com.sogeti.carservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketDTO {
+    // Inclusive lower and exclusive upper bound of the price band
+    private double from;
+    private double to;
+    private long cars;
+}
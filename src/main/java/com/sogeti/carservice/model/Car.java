@@ -1,28 +1,53 @@
 package com.sogeti.carservice.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+// The schema is owned by db/migration, the indexes are repeated here for ddl-auto create in tests and benchmarks
+@Table(indexes = {
+        @Index(name = "idx_car_make_model_version", columnList = "make, model, version"),
+        @Index(name = "idx_car_model", columnList = "model"),
+        @Index(name = "idx_car_gross_price", columnList = "grossPrice"),
+        @Index(name = "idx_car_nett_price", columnList = "nettPrice"),
+        @Index(name = "idx_car_co2_emission", columnList = "co2Emission")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Car {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Spring Data R2DBC does not read the jakarta annotations
+    @org.springframework.data.annotation.Id
+    // Pooled sequence instead of IDENTITY: ids are known before the INSERT, which lets Hibernate batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_id_seq")
+    @SequenceGenerator(name = "car_id_seq", sequenceName = "car_id_seq", allocationSize = 50)
     private Long id;
     private String make;
     private String model;
     private String version;
     private int numberOfDoors;
+    // Hibernate names the column co2emission, Spring Data R2DBC would look for co2_emission
+    @org.springframework.data.relational.core.mapping.Column("co2emission")
     private double co2Emission;
     private double grossPrice;
     private double nettPrice;
+    // Optimistic lock, named revision because 'version' is the car model version
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long revision;
 }
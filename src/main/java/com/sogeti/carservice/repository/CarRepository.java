@@ -1,7 +1,64 @@
 package com.sogeti.carservice.repository;
 
+import com.sogeti.carservice.dto.CarDTO;
 import com.sogeti.carservice.model.Car;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface CarRepository extends JpaRepository<Car, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car>, CarRepositoryCustom {
+
+    // Keyset page: WHERE id > :after ORDER BY id LIMIT :pageSize, served by the primary key index
+    List<Car> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    // Replaces every column in one statement, no SELECT beforehand. A null revision skips the optimistic check.
+    @Transactional
+    @Modifying
+    @Query("update Car c set c.make = :#{#car.make}, c.model = :#{#car.model}, c.version = :#{#car.version}, "
+            + "c.numberOfDoors = :#{#car.numberOfDoors}, c.co2Emission = :#{#car.co2Emission}, "
+            + "c.grossPrice = :#{#car.grossPrice}, c.nettPrice = :#{#car.nettPrice}, c.revision = c.revision + 1 "
+            + "where c.id = :id and (:revision is null or c.revision = :revision)")
+    int updateById(@Param("id") Long id, @Param("car") Car car, @Param("revision") Long expectedRevision);
+
+    // A null revision deletes whatever revision the car is at
+    @Transactional
+    @Modifying
+    @Query("delete from Car c where c.id = :id and (:revision is null or c.revision = :revision)")
+    int deleteByIdAndRevision(@Param("id") Long id, @Param("revision") Long expectedRevision);
+
+    @Query("select c.revision from Car c where c.id = :id")
+    Long findRevisionById(@Param("id") Long id);
+
+    // Changes whenever a car is created, updated or deleted, without reading the rows themselves
+    @Query("select count(c) as count, max(c.id) as maxId, sum(c.id) as idSum, sum(c.revision) as revisionSum from Car c")
+    CatalogueStats findCatalogueStats();
+
+    @Query("select c.id from Car c where c.id in :ids")
+    List<Long> findIdsByIdIn(Collection<Long> ids);
+
+    // Constructor projection so rows never become managed entities while the cursor is open
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.sogeti.carservice.dto.CarDTO(c.id, c.make, c.model, c.version, c.numberOfDoors, "
+            + "c.co2Emission, c.grossPrice, c.nettPrice, c.revision) from Car c order by c.id")
+    Stream<CarDTO> streamAllOrderById();
+
+    interface CatalogueStats {
+        Long getCount();
+        Long getMaxId();
+        Long getIdSum();
+        Long getRevisionSum();
+    }
 }
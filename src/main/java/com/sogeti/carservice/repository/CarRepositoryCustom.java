@@ -0,0 +1,14 @@
+package com.sogeti.carservice.repository;
+
+import java.util.Map;
+
+public interface CarRepositoryCustom {
+
+    /**
+     * Issues a single UPDATE that only sets the given attributes, keyed by their {@code Car} attribute name,
+     * and bumps the revision. A null expected revision skips the optimistic check.
+     *
+     * @return the number of rows updated, 0 when no car has this id and revision
+     */
+    int updateFieldsById(Long id, Map<String, Object> fields, Long expectedRevision);
+}
@@ -0,0 +1,38 @@
+package com.sogeti.carservice.repository;
+
+import com.sogeti.carservice.model.Car;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+public class CarRepositoryImpl implements CarRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateFieldsById(Long id, Map<String, Object> fields, Long expectedRevision) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one field to update is required");
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Car> update = criteriaBuilder.createCriteriaUpdate(Car.class);
+        Root<Car> car = update.from(Car.class);
+        fields.forEach((attribute, value) -> update.set(car.get(attribute), value));
+        Path<Long> revision = car.get("revision");
+        update.set(revision, criteriaBuilder.sum(revision, 1L));
+        if (expectedRevision != null) {
+            update.where(criteriaBuilder.equal(car.get("id"), id), criteriaBuilder.equal(revision, expectedRevision));
+        } else {
+            update.where(criteriaBuilder.equal(car.get("id"), id));
+        }
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,44 @@
+package com.sogeti.carservice.repository;
+
+import com.sogeti.carservice.dto.CarSearchCriteria;
+import com.sogeti.carservice.model.Car;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Search filters for {@link CarRepository}. Text filters are exact matches so that they can use the
+ * make/model/version index, every criterion left null is skipped.
+ */
+public final class CarSpecifications {
+
+    private CarSpecifications() {
+    }
+
+    public static Specification<Car> matching(CarSearchCriteria criteria) {
+        return Specification.where(equalTo("make", criteria.getMake()))
+                .and(equalTo("model", criteria.getModel()))
+                .and(equalTo("version", criteria.getVersion()))
+                .and(equalTo("numberOfDoors", criteria.getNumberOfDoors()))
+                .and(between("co2Emission", criteria.getMinCo2Emission(), criteria.getMaxCo2Emission()))
+                .and(between("grossPrice", criteria.getMinGrossPrice(), criteria.getMaxGrossPrice()))
+                .and(between("nettPrice", criteria.getMinNettPrice(), criteria.getMaxNettPrice()));
+    }
+
+    private static Specification<Car> equalTo(String attribute, Object value) {
+        return value == null ? null : (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private static Specification<Car> between(String attribute, Double min, Double max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.get(attribute), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), min);
+            }
+            return cb.between(root.get(attribute), min, max);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.sogeti.carservice.repository;
+
+import com.sogeti.carservice.model.Car;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the car table for the reactive profile. Writes are plain SQL because ids come from the pooled
+ * car_id_seq sequence, which Spring Data R2DBC cannot allocate from, and the revision check matches the JPA side.
+ */
+public interface ReactiveCarRepository extends R2dbcRepository<Car, Long> {
+
+    // Rows are emitted as they arrive, demand from the HTTP response limits how far the query runs ahead
+    Flux<Car> findAllByOrderByIdAsc();
+
+    Flux<Car> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    // Takes a whole sequence block per id, blocks handed to Hibernate's pooled optimizer are never reused
+    @Query("insert into car (id, make, model, version, number_of_doors, co2emission, gross_price, nett_price, revision) "
+            + "values (nextval('car_id_seq'), :#{#car.make}, :#{#car.model}, :#{#car.version}, :#{#car.numberOfDoors}, "
+            + ":#{#car.co2Emission}, :#{#car.grossPrice}, :#{#car.nettPrice}, 0) returning *")
+    Mono<Car> insert(@Param("car") Car car);
+
+    // A null revision skips the optimistic check, same as CarRepository.updateById
+    @Query("update car set make = :#{#car.make}, model = :#{#car.model}, version = :#{#car.version}, "
+            + "number_of_doors = :#{#car.numberOfDoors}, co2emission = :#{#car.co2Emission}, "
+            + "gross_price = :#{#car.grossPrice}, nett_price = :#{#car.nettPrice}, revision = revision + 1 "
+            + "where id = :id and (cast(:revision as bigint) is null or revision = :revision) returning *")
+    Mono<Car> updateById(@Param("id") Long id, @Param("car") Car car, @Param("revision") Long expectedRevision);
+
+    @Modifying
+    @Query("delete from car where id = :id and (cast(:revision as bigint) is null or revision = :revision)")
+    Mono<Integer> deleteByIdAndRevision(@Param("id") Long id, @Param("revision") Long expectedRevision);
+}
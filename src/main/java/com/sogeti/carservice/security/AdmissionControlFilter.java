@@ -0,0 +1,132 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.config.AdmissionControlProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Sheds car API requests with 503 and Retry-After while the service is saturated: too many requests in
+ * progress, threads already queueing for a database connection, or every iam-service call slot taken. Runs
+ * before {@link TokenAuthenticationFilter}, a shed request neither validates its token nor waits for a
+ * connection. Each check reads a counter, there is no lock on the request path.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String CHANGE_FEED_PATH = "/api/cars/changes";
+
+    private final AdmissionControlProperties properties;
+    private final IntSupplier pendingConnections;
+    private final Bulkhead iamBulkhead;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final String retryAfter;
+    private final Counter concurrencyRejected;
+    private final Counter databaseRejected;
+    private final Counter iamRejected;
+
+    public AdmissionControlFilter(AdmissionControlProperties properties, IntSupplier pendingConnections,
+                                  Bulkhead iamBulkhead, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pendingConnections = pendingConnections;
+        this.iamBulkhead = iamBulkhead;
+        // Rounded up, Retry-After only takes whole seconds
+        this.retryAfter = Long.toString(Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000));
+        this.concurrencyRejected = rejectedCounter(meterRegistry, "concurrency");
+        this.databaseRejected = rejectedCounter(meterRegistry, "database");
+        this.iamRejected = rejectedCounter(meterRegistry, "iam");
+        Gauge.builder("car.admission.in-flight", inFlight, AtomicInteger::get)
+                .description("Car API requests in progress")
+                .register(meterRegistry);
+    }
+
+    static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("car.admission.rejected")
+                .description("Car API requests turned away before reaching the controller")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (inFlight.incrementAndGet() > properties.getMaxConcurrentRequests()) {
+            inFlight.decrementAndGet();
+            reject(response, concurrencyRejected);
+            return;
+        }
+        boolean releasedOnComplete = false;
+        try {
+            if (pendingConnections.getAsInt() >= properties.getMaxPendingConnections()) {
+                reject(response, databaseRejected);
+                return;
+            }
+            if (iamBulkhead.getMetrics().getAvailableConcurrentCalls() == 0) {
+                reject(response, iamRejected);
+                return;
+            }
+            filterChain.doFilter(request, response);
+            // A streamed response is still in progress, it counts until it completes. Change feed subscriptions
+            // stay open and idle for a long time, they are bounded by the feed itself.
+            if (request.isAsyncStarted() && !isChangeFeed(request)) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                releasedOnComplete = true;
+            }
+        } finally {
+            if (!releasedOnComplete) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    // By path, not by the Accept header: a client asking for an event stream elsewhere, such as the NDJSON
+    // export, must not escape the limit. Only the subscription is asynchronous on this path.
+    private static boolean isChangeFeed(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals(CHANGE_FEED_PATH) || path.equals(CHANGE_FEED_PATH + "/");
+    }
+
+    private void reject(HttpServletResponse response, Counter counter) {
+        counter.increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        // Also called after a timeout or an error
+        @Override
+        public void onComplete(AsyncEvent event) {
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.sogeti.carservice.security;
+
+/**
+ * Caller identity established by {@link TokenAuthenticationFilter}, available as a request attribute
+ * to everything that runs after authentication.
+ */
+public record AuthenticatedPrincipal(String name) {
+
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedPrincipal.class.getName();
+}
@@ -0,0 +1,54 @@
+package com.sogeti.carservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client in the GCRA form: instead of a token count and a refill timestamp each client has a
+ * single "theoretical arrival time", the moment its bucket would be full again. Taking tokens pushes it forward,
+ * a request is admitted while it stays within capacity of now. One compare-and-set on an AtomicLong per request,
+ * no lock and no background refill.
+ */
+class ClientRateLimiter {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> arrivalTimes;
+
+    ClientRateLimiter(int capacity, double refillPerSecond, long maxClients, Duration idleTimeout) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity and refill rate must be positive");
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = nanosPerToken * capacity;
+        this.arrivalTimes = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout != null ? idleTimeout : Duration.ofNanos(burstNanos))
+                .build();
+    }
+
+    /**
+     * Takes cost tokens from the client's bucket.
+     *
+     * @return 0 when the request is admitted, otherwise the nanoseconds until the tokens are available
+     */
+    long tryAcquire(String client, int cost, long nowNanos) {
+        // A new client starts with a full bucket, max() below treats any past time as full
+        AtomicLong arrivalTime = arrivalTimes.get(client, key -> new AtomicLong(Long.MIN_VALUE));
+        long increment = nanosPerToken * cost;
+        while (true) {
+            long current = arrivalTime.get();
+            long next = Math.max(current, nowNanos) + increment;
+            long wait = next - burstNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrivalTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
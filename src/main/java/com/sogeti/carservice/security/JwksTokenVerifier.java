@@ -0,0 +1,145 @@
+package com.sogeti.carservice.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.sogeti.carservice.config.TokenValidationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies JWT signatures and expiry locally with public keys loaded from a JWKS document.
+ * The key set is loaded once at startup and refreshed in the background, so no network call is made per token.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(TokenValidationProperties.class)
+public class JwksTokenVerifier implements DisposableBean {
+
+    // Unknown key ids do not trigger more than one extra reload in this period
+    private static final long MIN_FORCED_REFRESH_MILLIS = 30_000;
+
+    private final TokenValidationProperties properties;
+    private final ResourceLoader resourceLoader;
+    private final DefaultJWTProcessor<SecurityContext> processor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private ScheduledExecutorService refresher;
+    private volatile JWKSet keys;
+    private volatile long lastRefreshMillis;
+
+    public JwksTokenVerifier(TokenValidationProperties properties, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        this.resourceLoader = resourceLoader;
+        this.processor = createProcessor();
+        if (isEnabled()) {
+            if (properties.getJwksLocation() == null) {
+                throw new IllegalStateException("iam.token-validation.jwks-location is required in LOCAL mode");
+            }
+            refreshKeys();
+            long interval = properties.getJwksRefreshInterval().toMillis();
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshKeys, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == TokenValidationProperties.Mode.LOCAL;
+    }
+
+    /**
+     * Returns whether the token carries a valid signature and has not expired,
+     * or empty when no key is available to decide and the caller should fall back to iam-service.
+     */
+    public Optional<Boolean> verify(String token) {
+        JWKSet currentKeys = keys;
+        if (currentKeys == null) {
+            return Optional.empty();
+        }
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            String keyId = jwt.getHeader().getKeyID();
+            if (keyId != null && currentKeys.getKeyByKeyId(keyId) == null) {
+                // Most likely a key rotation that has not been picked up yet
+                if (System.currentTimeMillis() - lastRefreshMillis > MIN_FORCED_REFRESH_MILLIS) {
+                    log.warn("Unknown JWKS key id {}, refreshing keys", keyId);
+                    refresher.execute(this::refreshKeys);
+                }
+                return Optional.empty();
+            }
+            processor.process(jwt, null);
+            return Optional.of(true);
+        } catch (ParseException | BadJOSEException e) {
+            log.debug("Token rejected by local verification: {}", e.getMessage());
+            return Optional.of(false);
+        } catch (JOSEException e) {
+            log.warn("Local token verification failed", e);
+            return Optional.empty();
+        }
+    }
+
+    void refreshKeys() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        lastRefreshMillis = System.currentTimeMillis();
+        Resource resource = resourceLoader.getResource(properties.getJwksLocation());
+        try (InputStream inputStream = resource.getInputStream()) {
+            keys = JWKSet.load(inputStream);
+            log.info("Loaded {} JWKS keys from {}", keys.getKeys().size(), properties.getJwksLocation());
+        } catch (IOException | ParseException e) {
+            // Keep the previous keys, callers fall back to iam-service while none are available
+            log.error("Could not load JWKS keys from {}", properties.getJwksLocation(), e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private DefaultJWTProcessor<SecurityContext> createProcessor() {
+        JWKSource<SecurityContext> keySource = (selector, context) ->
+                keys == null ? List.of() : selector.select(keys);
+        Set<JWSAlgorithm> algorithms = properties.getAlgorithms().stream()
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toSet());
+        DefaultJWTClaimsVerifier<SecurityContext> claimsVerifier = new DefaultJWTClaimsVerifier<>(null, Set.of("exp"));
+        claimsVerifier.setMaxClockSkew((int) properties.getClockSkew().toSeconds());
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, keySource));
+        jwtProcessor.setJWTClaimsSetVerifier(claimsVerifier);
+        return jwtProcessor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.sogeti.carservice.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Claims read from the payload of a JWT without verifying its signature.
+ * Only use this for bookkeeping (cache expiry, principal name) on tokens that are validated elsewhere.
+ */
+public record JwtClaims(String subject, Instant expiresAt) {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static Optional<JwtClaims> parse(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(first + 1, second));
+            JsonNode claims = OBJECT_MAPPER.readTree(payload);
+            String subject = claims.hasNonNull("sub") ? claims.get("sub").asText() : null;
+            Instant expiresAt = claims.hasNonNull("exp") ? Instant.ofEpochSecond(claims.get("exp").asLong()) : null;
+            return Optional.of(new JwtClaims(subject, expiresAt));
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+}
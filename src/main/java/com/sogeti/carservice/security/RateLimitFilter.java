@@ -0,0 +1,79 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits every authenticated client to its own token bucket, answering 429 with Retry-After once it is empty.
+ * Runs after {@link TokenAuthenticationFilter} and is keyed on the {@link AuthenticatedPrincipal}, a request
+ * costs more tokens the more work its endpoint does.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String CARS_PATH = "/api/cars";
+
+    private final RateLimitProperties properties;
+    private final ClientRateLimiter limiter;
+    private final Counter rejected;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        int maxCost = Math.max(Math.max(properties.getListCost(), properties.getSearchCost()),
+                Math.max(properties.getBatchCost(), properties.getDefaultCost()));
+        if (maxCost > properties.getCapacity()) {
+            // Such a request could never be admitted
+            throw new IllegalStateException("car-service.rate-limit.capacity " + properties.getCapacity()
+                    + " is below the highest endpoint cost " + maxCost);
+        }
+        this.properties = properties;
+        this.limiter = new ClientRateLimiter(properties.getCapacity(), properties.getRefillPerSecond(),
+                properties.getMaxClients(), properties.getIdleTimeout());
+        this.rejected = AdmissionControlFilter.rejectedCounter(meterRegistry, "rate-limited");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait = limiter.tryAcquire(clientOf(request), costOf(request), System.nanoTime());
+        if (wait > 0) {
+            rejected.increment();
+            // Whole seconds, rounded up so that a client retrying on time is admitted
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static String clientOf(HttpServletRequest request) {
+        if (request.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE) instanceof AuthenticatedPrincipal principal) {
+            return principal.name();
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    int costOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(CARS_PATH) || path.equals(CARS_PATH + "/")) {
+            boolean list = "GET".equals(request.getMethod()) && request.getParameter("limit") == null;
+            return list ? properties.getListCost() : properties.getDefaultCost();
+        }
+        if (path.startsWith(CARS_PATH + "/batch")) {
+            return properties.getBatchCost();
+        }
+        if (path.startsWith(CARS_PATH + "/search") || path.startsWith(CARS_PATH + "/analytics")) {
+            return properties.getSearchCost();
+        }
+        return properties.getDefaultCost();
+    }
+}
@@ -0,0 +1,71 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.exception.TokenValidationException;
+import com.sogeti.carservice.service.ReactiveCarService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebFlux counterpart of {@link TokenAuthenticationFilter}, validates the bearer token without blocking
+ * and rejects the request before it is routed to a handler.
+ */
+public class ReactiveTokenAuthenticationFilter implements WebFilter, Ordered {
+
+    private static final String CARS_PATH = "/api/cars";
+
+    private final ReactiveCarService carService;
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
+
+    public ReactiveTokenAuthenticationFilter(ReactiveCarService carService, MeterRegistry meterRegistry) {
+        this.carService = carService;
+        this.authenticatedTimer = Timer.builder("car.auth").tag("outcome", "authenticated").register(meterRegistry);
+        this.rejectedTimer = Timer.builder("car.auth").tag("outcome", "rejected").register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!path.equals(CARS_PATH) && !path.startsWith(CARS_PATH + "/")) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        String token = TokenAuthenticationFilter.extractToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (token == null) {
+            return reject(exchange, start);
+        }
+        return carService.isValidToken(token)
+                .onErrorReturn(TokenValidationException.class, false)
+                .flatMap(valid -> {
+                    if (!valid) {
+                        return reject(exchange, start);
+                    }
+                    exchange.getAttributes().put(AuthenticatedPrincipal.REQUEST_ATTRIBUTE,
+                            TokenAuthenticationFilter.principalOf(token));
+                    authenticatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return chain.filter(exchange);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Same position as the servlet filter, right after the observation filter
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, long start) {
+        rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return exchange.getResponse().setComplete();
+    }
+}
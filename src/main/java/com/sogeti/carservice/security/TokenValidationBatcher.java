@@ -0,0 +1,148 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.client.IAMFeignClient;
+import com.sogeti.carservice.config.TokenBatchProperties;
+import com.sogeti.carservice.dto.TokenValidationBatchRequestDTO;
+import com.sogeti.carservice.dto.TokenValidationBatchResultDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the tokens of concurrent requests for up to max-wait and validates them with one bulk call to
+ * iam-service. Requests for a token that is already waiting share its result instead of adding a duplicate.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(TokenBatchProperties.class)
+public class TokenValidationBatcher implements DisposableBean {
+
+    private final TokenBatchProperties properties;
+    private final IAMFeignClient iamFeignClient;
+    private final DistributionSummary batchSizes;
+    private final Map<String, CompletableFuture<Boolean>> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private Thread dispatcher;
+    private ExecutorService sender;
+
+    public TokenValidationBatcher(TokenBatchProperties properties, IAMFeignClient iamFeignClient,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.iamFeignClient = iamFeignClient;
+        this.batchSizes = DistributionSummary.builder("iam.token.validation.batch.size")
+                .description("Tokens validated per bulk call to iam-service")
+                .register(meterRegistry);
+        if (isEnabled()) {
+            AtomicInteger senderCount = new AtomicInteger();
+            sender = Executors.newFixedThreadPool(properties.getMaxConcurrentBatches(), r -> {
+                Thread thread = new Thread(r, "iam-batch-sender-" + senderCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            dispatcher = new Thread(this::dispatch, "iam-batch-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Blocks until the batch holding the token has been validated. Failures of the bulk call are rethrown
+     * to every waiting caller, none of them is cached here.
+     */
+    public boolean validate(String token) {
+        try {
+            return submit(token).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    CompletableFuture<Boolean> submit(String token) {
+        return pending.computeIfAbsent(token, key -> {
+            queue.add(key);
+            return new CompletableFuture<>();
+        });
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<String> batch = new ArrayList<>(properties.getMaxBatchSize());
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + properties.getMaxWait().toNanos();
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    String token = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (token == null) {
+                        break;
+                    }
+                    batch.add(token);
+                }
+                sender.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void send(List<String> batch) {
+        batchSizes.record(batch.size());
+        try {
+            TokenValidationBatchResultDTO result = iamFeignClient.validateTokens(
+                    TokenValidationBatchRequestDTO.builder().tokens(batch).build());
+            List<Boolean> valid = result != null ? result.getValid() : null;
+            if (valid == null || valid.size() != batch.size()) {
+                throw new IllegalStateException("iam-service answered a batch of " + batch.size() + " tokens with "
+                        + (valid == null ? "no" : valid.size()) + " results");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), Boolean.TRUE.equals(valid.get(i)), null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Bulk token validation of {} tokens failed", batch.size(), e);
+            batch.forEach(token -> complete(token, false, e));
+        }
+    }
+
+    private void complete(String token, boolean valid, RuntimeException failure) {
+        CompletableFuture<Boolean> future = pending.remove(token);
+        if (future == null) {
+            return;
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(valid);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            sender.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.sogeti.carservice.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sogeti.carservice.config.TokenCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of token validation results, keyed by the SHA-256 hash of the token so raw tokens are never kept.
+ * Positive results live at most until the JWT 'exp' claim, negative results only for a short time.
+ * Concurrent lookups of the same token share a single call to the validator.
+ */
+@Component
+@EnableConfigurationProperties(TokenCacheProperties.class)
+public class TokenValidationCache {
+
+    private final TokenCacheProperties properties;
+    private final Clock clock;
+    private final AsyncCache<String, Validation> cache;
+
+    @Autowired
+    public TokenValidationCache(TokenCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    // The clock is compared with the JWT 'exp' claim, the ticker times the entries
+    TokenValidationCache(TokenCacheProperties properties, MeterRegistry meterRegistry, Clock clock, Ticker ticker) {
+        this.properties = properties;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new ValidationExpiry())
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "iam.token.validation");
+    }
+
+    /**
+     * Returns the cached result for the token, or asks the validator and caches its answer.
+     * Exceptions thrown by the validator are propagated and never cached.
+     */
+    public boolean validate(String token, Predicate<String> validator) {
+        if (!properties.isEnabled()) {
+            return validator.test(token);
+        }
+        CompletableFuture<Validation> created = new CompletableFuture<>();
+        CompletableFuture<Validation> result = cache.get(hash(token), (key, executor) -> created);
+        if (result == created) {
+            try {
+                created.complete(load(token, validator));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return result.join().valid();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #validate}: concurrent calls for the same token share one validation,
+     * a future completed exceptionally is dropped from the cache so the next call asks again.
+     */
+    public CompletableFuture<Boolean> validateAsync(String token, Function<String, CompletableFuture<Boolean>> validator) {
+        if (!properties.isEnabled()) {
+            return validator.apply(token);
+        }
+        return cache.get(hash(token), (key, executor) -> validator.apply(token).thenApply(valid -> validation(token, valid)))
+                .thenApply(Validation::valid);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private Validation load(String token, Predicate<String> validator) {
+        return validation(token, validator.test(token));
+    }
+
+    private static Validation validation(String token, boolean valid) {
+        Instant expiresAt = JwtClaims.parse(token).map(JwtClaims::expiresAt).orElse(null);
+        return new Validation(valid, expiresAt);
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Validation(boolean valid, Instant expiresAt) {
+    }
+
+    private class ValidationExpiry implements Expiry<String, Validation> {
+
+        @Override
+        public long expireAfterCreate(String key, Validation value, long currentTime) {
+            if (!value.valid()) {
+                return properties.getNegativeTtl().toNanos();
+            }
+            long ttl = properties.getTtl().toNanos();
+            if (value.expiresAt() != null) {
+                long untilExpiry = TimeUnit.MILLISECONDS.toNanos(value.expiresAt().toEpochMilli() - clock.millis());
+                ttl = Math.max(0, Math.min(ttl, untilExpiry));
+            }
+            return ttl;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Validation value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Validation value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.dto.MakeEmissionDTO;
+import com.sogeti.carservice.dto.PriceBucketDTO;
+
+import java.util.List;
+
+public interface CarAnalyticsService {
+    List<MakeEmissionDTO> getCo2EmissionByMake();
+    List<PriceBucketDTO> getPriceHistogram(String field, double bucketWidth);
+}
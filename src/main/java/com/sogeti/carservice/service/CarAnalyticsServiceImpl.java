@@ -0,0 +1,175 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.PrimaryReads;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.MakeEmissionDTO;
+import com.sogeti.carservice.dto.PriceBucketDTO;
+import com.sogeti.carservice.exception.InvalidRequestException;
+import com.sogeti.carservice.utility.CarColumns;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aggregations over {@link CarColumns}, an off-heap copy of the catalogue that is loaded on first use and kept in
+ * sync with the committed changes: the next report looks up only the changed cars and applies them to the columns.
+ * Reports are computed by plain loops over the columns, without the database or heap objects.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@Timed("car.service")
+public class CarAnalyticsServiceImpl implements CarAnalyticsService {
+
+    static final Set<String> PRICE_FIELDS = Set.of("grossPrice", "nettPrice");
+    // Guards against a tiny bucket width over a wide price range
+    static final int MAX_BUCKETS = 10_000;
+    // Bucket numbers up to 2^53 are exact as doubles and their differences are exact as longs
+    private static final double MAX_EXACT_BUCKET = 0x1p53;
+    // Beyond this many changed cars, reading the whole table again is cheaper than looking them up by id
+    static final int MAX_CHANGES_APPLIED = 1_000;
+
+    private final CarService carService;
+    // Not synchronized: a virtual thread waiting for the columns must not pin its carrier
+    private final Lock updateLock = new ReentrantLock();
+    // Changed car ids with the number of the change that last touched them, until the columns contain it
+    private final Map<Long, Long> changedIds = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    // Changes without ids ask for a full load, the columns are current once loaded equals requested
+    private final AtomicLong loadsRequested = new AtomicLong();
+    private volatile long loaded = -1;
+    private volatile CarColumns columns;
+
+    public CarAnalyticsServiceImpl(CarService carService) {
+        this.carService = carService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        if (event.ids() == null) {
+            loadsRequested.incrementAndGet();
+            return;
+        }
+        long change = changes.incrementAndGet();
+        event.ids().forEach(id -> changedIds.put(id, change));
+    }
+
+    private CarColumns columns() {
+        CarColumns current = columns;
+        if (current != null && loaded == loadsRequested.get() && changedIds.isEmpty()) {
+            return current;
+        }
+        updateLock.lock();
+        try {
+            long requested = loadsRequested.get();
+            if (columns == null || loaded != requested || changedIds.size() > MAX_CHANGES_APPLIED) {
+                Map<Long, Long> covered = Map.copyOf(changedIds);
+                columns = load();
+                loaded = requested;
+                // A change committed while the rows were read stays and is applied below
+                covered.forEach(changedIds::remove);
+            }
+            if (!changedIds.isEmpty()) {
+                Map<Long, Long> applied = Map.copyOf(changedIds);
+                List<CarDTO> changedCars = PrimaryReads.call(() -> carService.getCarsByIds(applied.keySet()));
+                columns = columns.withChanges(applied.keySet(), changedCars);
+                // Only the ids not changed again meanwhile, those are looked up at the next report
+                applied.forEach(changedIds::remove);
+                log.debug("Applied {} changed cars to the columns", applied.size());
+            }
+            return columns;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private CarColumns load() {
+        CarColumns.Builder builder = CarColumns.builder();
+        // Streams the rows, the catalogue is never held as a list of entities or DTOs. The columns are kept until
+        // the cars change again, a lagging read replica would leave them stale that long
+        PrimaryReads.run(() -> carService.exportCars(builder::add));
+        CarColumns built = builder.build();
+        log.debug("Loaded {} cars into {} bytes of columns", built.size(), built.offHeapBytes());
+        return built;
+    }
+
+    @Override
+    public List<MakeEmissionDTO> getCo2EmissionByMake() {
+        CarColumns cars = columns();
+        int makes = cars.makeDictionary().size();
+        double[] sums = new double[makes];
+        long[] counts = new long[makes];
+        for (int row = 0, size = cars.size(); row < size; row++) {
+            int make = cars.make(row);
+            sums[make] += cars.co2Emission(row);
+            counts[make]++;
+        }
+        List<MakeEmissionDTO> result = new ArrayList<>(makes);
+        for (int make = 0; make < makes; make++) {
+            result.add(MakeEmissionDTO.builder()
+                    .make(cars.makeDictionary().get(make))
+                    .cars(counts[make])
+                    .averageCo2Emission(sums[make] / counts[make])
+                    .build());
+        }
+        result.sort(Comparator.comparing(MakeEmissionDTO::getMake, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    @Override
+    public List<PriceBucketDTO> getPriceHistogram(String field, double bucketWidth) {
+        if (!PRICE_FIELDS.contains(field)) {
+            throw new InvalidRequestException("Cannot build a histogram over '" + field + "'");
+        }
+        if (!(bucketWidth > 0) || Double.isInfinite(bucketWidth)) {
+            throw new InvalidRequestException("Bucket width must be a positive number");
+        }
+        CarColumns cars = columns();
+        boolean gross = field.equals("grossPrice");
+        int size = cars.size();
+        if (size == 0) {
+            return List.of();
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < size; row++) {
+            double price = gross ? cars.grossPrice(row) : cars.nettPrice(row);
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        // Checked as doubles, a tiny width gives bucket numbers beyond what a long holds
+        double firstBucket = Math.floor(min / bucketWidth);
+        double lastBucket = Math.floor(max / bucketWidth);
+        if (!(lastBucket - firstBucket < MAX_BUCKETS) || Math.abs(firstBucket) > MAX_EXACT_BUCKET
+                || Math.abs(lastBucket) > MAX_EXACT_BUCKET) {
+            throw new InvalidRequestException("A bucket width of " + bucketWidth + " gives more than " + MAX_BUCKETS + " buckets");
+        }
+        long first = (long) firstBucket;
+        long[] counts = new long[(int) ((long) lastBucket - first + 1)];
+        for (int row = 0; row < size; row++) {
+            double price = gross ? cars.grossPrice(row) : cars.nettPrice(row);
+            counts[(int) ((long) Math.floor(price / bucketWidth) - first)]++;
+        }
+        List<PriceBucketDTO> result = new ArrayList<>(counts.length);
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            result.add(PriceBucketDTO.builder()
+                    .from((first + bucket) * bucketWidth)
+                    .to((first + bucket + 1) * bucketWidth)
+                    .cars(counts[bucket])
+                    .build());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.dto.BatchItemResultDTO;
+import com.sogeti.carservice.dto.CarDTO;
+
+import java.util.Iterator;
+import java.util.List;
+
+public interface CarBatchService {
+    List<BatchItemResultDTO> createCars(Iterator<CarDTO> cars);
+    List<BatchItemResultDTO> updateCars(Iterator<CarDTO> cars);
+    List<BatchItemResultDTO> deleteCars(Iterator<Long> ids);
+}
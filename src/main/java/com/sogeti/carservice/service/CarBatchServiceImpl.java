@@ -0,0 +1,181 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.BatchProperties;
+import com.sogeti.carservice.config.CacheConfig;
+import com.sogeti.carservice.dto.BatchItemResultDTO;
+import com.sogeti.carservice.dto.BatchItemResultDTO.Status;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.model.Car;
+import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.utility.CarMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk writes, run as one transaction per chunk so Hibernate can send each chunk as JDBC statement batches.
+ * A failing chunk is rolled back and reported item by item without affecting the chunks before or after it.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@EnableConfigurationProperties(BatchProperties.class)
+@Timed("car.service")
+public class CarBatchServiceImpl implements CarBatchService {
+
+    // Item outcomes that changed a car
+    private static final Map<Status, CarChangeDTO.Type> CHANGE_TYPES = Map.of(
+            Status.CREATED, CarChangeDTO.Type.CREATED,
+            Status.UPDATED, CarChangeDTO.Type.UPDATED,
+            Status.DELETED, CarChangeDTO.Type.DELETED);
+
+    private final CarRepository carRepository;
+    private final CarMapper carMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache carsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public CarBatchServiceImpl(CarRepository carRepository, CarMapper carMapper,
+                               PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                               ApplicationEventPublisher eventPublisher, BatchProperties batchProperties) {
+        this.carRepository = carRepository;
+        this.carMapper = carMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.carsCache = cacheManager.getCache(CacheConfig.CARS_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = batchProperties.getChunkSize();
+    }
+
+    @Override
+    public List<BatchItemResultDTO> createCars(Iterator<CarDTO> cars) {
+        return inChunks(cars, (chunk, offset) -> {
+            List<Car> newCars = chunk.stream().map(carDTO -> {
+                Car car = carMapper.carDTOToCar(carDTO);
+                // Ids always come from the sequence, a client supplied id would turn the insert into a merge
+                car.setId(null);
+                return car;
+            }).toList();
+            List<Car> saved = carRepository.saveAll(newCars);
+            return IntStream.range(0, saved.size())
+                    .mapToObj(i -> result(offset + i, saved.get(i).getId(), Status.CREATED, null))
+                    .toList();
+        });
+    }
+
+    @Override
+    public List<BatchItemResultDTO> updateCars(Iterator<CarDTO> cars) {
+        return inChunks(cars, (chunk, offset) -> {
+            List<Long> ids = chunk.stream().map(CarDTO::getId).filter(Objects::nonNull).toList();
+            Map<Long, Car> existing = carRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Car::getId, Function.identity()));
+            List<BatchItemResultDTO> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                CarDTO carDTO = chunk.get(i);
+                Car car = carDTO.getId() != null ? existing.get(carDTO.getId()) : null;
+                if (carDTO.getId() == null) {
+                    results.add(result(offset + i, null, Status.FAILED, "id is required"));
+                } else if (car == null) {
+                    results.add(result(offset + i, carDTO.getId(), Status.NOT_FOUND, null));
+                } else if (carDTO.getRevision() != null && !carDTO.getRevision().equals(car.getRevision())) {
+                    results.add(result(offset + i, car.getId(), Status.CONFLICT,
+                            "Car is at revision " + car.getRevision()));
+                } else {
+                    // Dirty checking flushes the changed entities as one batched UPDATE at commit,
+                    // Hibernate bumps and checks the revision of every row
+                    carMapper.updateCarFromCarDTO(carDTO, car);
+                    results.add(result(offset + i, car.getId(), Status.UPDATED, null));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public List<BatchItemResultDTO> deleteCars(Iterator<Long> ids) {
+        return inChunks(ids, (chunk, offset) -> {
+            Set<Long> existing = new HashSet<>(carRepository.findIdsByIdIn(chunk));
+            carRepository.deleteAllByIdInBatch(existing);
+            return IntStream.range(0, chunk.size())
+                    .mapToObj(i -> result(offset + i, chunk.get(i),
+                            existing.contains(chunk.get(i)) ? Status.DELETED : Status.NOT_FOUND, null))
+                    .toList();
+        });
+    }
+
+    private <T> List<BatchItemResultDTO> inChunks(Iterator<T> items, ChunkWriter<T> writer) {
+        List<BatchItemResultDTO> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize || !items.hasNext()) {
+                results.addAll(writeChunk(chunk, results.size(), writer));
+                chunk.clear();
+            }
+        }
+        return results;
+    }
+
+    private <T> List<BatchItemResultDTO> writeChunk(List<T> chunk, int offset, ChunkWriter<T> writer) {
+        List<BatchItemResultDTO> results;
+        try {
+            results = transactionTemplate.execute(status -> {
+                List<BatchItemResultDTO> written = writer.write(chunk, offset);
+                // Inside the transaction, the change log entries commit or roll back with the chunk
+                publishChanges(written);
+                return written;
+            });
+        } catch (RuntimeException e) {
+            // Not only database errors, anything thrown for one chunk fails that chunk and the batch goes on
+            log.error("Batch chunk starting at item {} was rolled back", offset, e);
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            return IntStream.range(0, chunk.size())
+                    .mapToObj(i -> result(offset + i, null, Status.FAILED, message))
+                    .toList();
+        }
+        // Only touch the cache once the chunk is committed
+        results.stream()
+                .filter(result -> CHANGE_TYPES.containsKey(result.getStatus()))
+                .forEach(result -> carsCache.evict(result.getId()));
+        return results;
+    }
+
+    private void publishChanges(List<BatchItemResultDTO> results) {
+        Map<CarChangeDTO.Type, List<Long>> changedIds = results.stream()
+                .filter(result -> CHANGE_TYPES.containsKey(result.getStatus()))
+                .collect(Collectors.groupingBy(result -> CHANGE_TYPES.get(result.getStatus()),
+                        () -> new EnumMap<>(CarChangeDTO.Type.class),
+                        Collectors.mapping(BatchItemResultDTO::getId, Collectors.toList())));
+        changedIds.forEach((type, ids) -> eventPublisher.publishEvent(new CarChangedEvent(type, ids)));
+    }
+
+    private static BatchItemResultDTO result(int index, Long id, Status status, String message) {
+        return BatchItemResultDTO.builder().index(index).id(id).status(status).message(message).build();
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        List<BatchItemResultDTO> write(List<T> chunk, int offset);
+    }
+}
@@ -0,0 +1,94 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.PrimaryReads;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.utility.CarJsonWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full catalogue serialised once, as plain and as gzip compressed JSON, so that reading all cars neither loads
+ * nor serialises a single row while nothing changes. A committed change drops the snapshot, the next read rebuilds it.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class CarCatalogueSnapshot {
+
+    private final RebuiltOnChange<Snapshot> snapshot;
+
+    public CarCatalogueSnapshot(CarService carService) {
+        // From the primary: a snapshot of a lagging read replica would be served under its ETag until the next change
+        this.snapshot = new RebuiltOnChange<>(() -> build(PrimaryReads.call(carService::getAllCars)));
+    }
+
+    public Snapshot get() {
+        return snapshot.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        snapshot.invalidate();
+    }
+
+    static Snapshot build(List<CarDTO> cars) {
+        try {
+            ByteArrayOutputStream json = new ByteArrayOutputStream(cars.size() * 160 + 2);
+            CarJsonWriter.writeCars(cars, json);
+            byte[] raw = json.toByteArray();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+            try (GZIPOutputStream gzip = new BestCompressionGzipOutputStream(compressed)) {
+                gzip.write(raw);
+            }
+            byte[] gzipped = compressed.size() < raw.length ? compressed.toByteArray() : null;
+            log.debug("Catalogue snapshot of {} cars built, {} bytes, {} gzipped", cars.size(), raw.length,
+                    gzipped != null ? gzipped.length : raw.length);
+            return new Snapshot(raw, gzipped, hash(raw));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Compressed once per change, so the slowest level costs nothing per request
+    private static final class BestCompressionGzipOutputStream extends GZIPOutputStream {
+
+        BestCompressionGzipOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+
+    /**
+     * @param json the catalogue as a JSON array of cars
+     * @param gzip the same bytes gzip compressed, null when compression would not make them smaller
+     * @param hash content hash of {@code json}, the strong entity tag of both representations is derived from it
+     */
+    public record Snapshot(byte[] json, byte[] gzip, String hash) {
+    }
+}
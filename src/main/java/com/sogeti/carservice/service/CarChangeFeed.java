@@ -0,0 +1,319 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.ChangeFeedProperties;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.exception.ChangesExpiredException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the entries of the {@link CarChangeLog} to Server-Sent Events subscribers. Each subscriber has its own
+ * position in the log, so a new one can start anywhere in the retained history and catch up before it receives
+ * the live changes. One thread reads the log after every committed change, local or reported by another
+ * instance, and at the poll interval, and queues the changes per subscriber, at most a page ahead of what was
+ * sent. The blocking writes to the connections run on sender threads, at most one per subscriber, so a slow
+ * client only delays itself and is closed once its sends stop making progress. A write stuck on a stalled
+ * connection cannot be interrupted, such a subscriber keeps its place under the subscriber limit until the write
+ * returns, which also bounds the sender threads.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class CarChangeFeed implements DisposableBean {
+
+    private static final long EXPIRY_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Object KEEP_ALIVE = new Object();
+
+    private final CarChangeLog changeLog;
+    private final ChangeFeedProperties properties;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Closed subscribers whose sender has not returned yet, still counted against the subscriber limit
+    private final Set<Subscriber> closing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService reader;
+    private final ExecutorService senders;
+    private final Counter sent;
+    private long lastExpiryMillis;
+
+    public CarChangeFeed(CarChangeLog changeLog, ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.changeLog = changeLog;
+        this.properties = properties;
+        this.sent = Counter.builder("car.change-feed.events")
+                .description("Car changes sent to Server-Sent Events subscribers")
+                .register(meterRegistry);
+        Gauge.builder("car.change-feed.subscribers", subscribers, List::size)
+                .description("Connected Server-Sent Events subscribers of the car change feed")
+                .register(meterRegistry);
+        this.reader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "car-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderCount = new AtomicInteger();
+        // One thread per subscriber at most, open or closing, idle threads end after a minute
+        ThreadPoolExecutor senderPool = new ThreadPoolExecutor(properties.getMaxSubscribers(),
+                properties.getMaxSubscribers(), 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "car-change-feed-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        senderPool.allowCoreThreadTimeOut(true);
+        this.senders = senderPool;
+        long interval = properties.getPollInterval().toMillis();
+        reader.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param since last sequence number the client has processed, null to receive only changes from now on
+     * @throws ChangesExpiredException when the changes after since are no longer retained
+     */
+    public SseEmitter subscribe(Long since) {
+        if (subscribers.size() + closing.size() >= properties.getMaxSubscribers()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+        long position;
+        if (since != null) {
+            // Checked now, while the client can still be answered with 410 instead of an event stream
+            changeLog.findChangesAfter(since, 1);
+            position = since;
+        } else {
+            position = changeLog.lastSequence();
+        }
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter, position);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        requestDrain();
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(properties.getSubscriptionTimeout().toMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        if (!subscribers.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            reader.execute(this::drainSafely);
+        }
+    }
+
+    private void drainSafely() {
+        // Cleared before reading, a change committed meanwhile schedules another run
+        drainScheduled.set(false);
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Reading the car change log failed, retrying at the next change or poll", e);
+        }
+    }
+
+    private void drain() {
+        int pageSize = properties.getPageSize();
+        while (true) {
+            // Subscribers with a full queue are topped up again once their sender has caught up
+            List<Subscriber> ready = subscribers.stream()
+                    .filter(subscriber -> subscriber.queue.size() < pageSize)
+                    .toList();
+            if (ready.isEmpty()) {
+                return;
+            }
+            long from = ready.stream().mapToLong(subscriber -> subscriber.position).min().orElseThrow();
+            List<CarChangeDTO> changes;
+            try {
+                changes = changeLog.findChangesAfter(from, pageSize);
+            } catch (ChangesExpiredException e) {
+                // Only a subscriber stuck on a slow connection for the whole retention period gets here
+                ready.stream().filter(subscriber -> subscriber.position == from)
+                        .forEach(subscriber -> close(subscriber, e));
+                continue;
+            }
+            for (Subscriber subscriber : ready) {
+                if (subscriber.closed.get()) {
+                    continue;
+                }
+                for (CarChangeDTO change : changes) {
+                    if (change.getSequence() <= subscriber.position) {
+                        continue;
+                    }
+                    if (subscriber.queue.size() >= pageSize) {
+                        subscriber.backlogged = true;
+                        break;
+                    }
+                    subscriber.queue.add(change);
+                    subscriber.position = change.getSequence();
+                }
+                startSending(subscriber);
+            }
+            if (changes.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    private void startSending(Subscriber subscriber) {
+        if (!subscriber.queue.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            subscriber.lastProgressNanos = System.nanoTime();
+            senders.execute(() -> sendQueued(subscriber));
+        }
+    }
+
+    // Runs on a sender thread, the only one writing to this subscriber's connection
+    private void sendQueued(Subscriber subscriber) {
+        while (true) {
+            Object next = subscriber.queue.poll();
+            if (next == null) {
+                subscriber.sending.set(false);
+                // Something queued between the poll and the reset is picked up by this thread or the next one
+                if (subscriber.queue.isEmpty() || !subscriber.sending.compareAndSet(false, true)) {
+                    break;
+                }
+                continue;
+            }
+            if (next instanceof Close close) {
+                try {
+                    if (close.cause() != null) {
+                        subscriber.emitter.completeWithError(close.cause());
+                    } else {
+                        subscriber.emitter.complete();
+                    }
+                } finally {
+                    closing.remove(subscriber);
+                }
+                return;
+            }
+            try {
+                if (next instanceof CarChangeDTO change) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.getSequence()))
+                            .data(change, MediaType.APPLICATION_JSON));
+                    sent.increment();
+                } else {
+                    // Keeps proxies from closing an idle stream and notices clients that went away
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+                subscriber.lastProgressNanos = System.nanoTime();
+            } catch (IOException | IllegalStateException e) {
+                close(subscriber, e);
+            }
+        }
+        if (subscriber.backlogged) {
+            subscriber.backlogged = false;
+            requestDrain();
+        }
+    }
+
+    private void poll() {
+        try {
+            long sendTimeoutNanos = properties.getSendTimeout().toNanos();
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.sending.get()) {
+                    if (subscriber.queue.isEmpty()) {
+                        subscriber.queue.add(KEEP_ALIVE);
+                        startSending(subscriber);
+                    }
+                } else if (now - subscriber.lastProgressNanos > sendTimeoutNanos) {
+                    log.info("Closing a car change feed subscriber that accepted nothing for {}", properties.getSendTimeout());
+                    close(subscriber, new TimeoutException("No progress sending car changes"));
+                }
+            }
+            drain();
+            long nowMillis = System.currentTimeMillis();
+            if (nowMillis - lastExpiryMillis >= EXPIRY_INTERVAL_MILLIS) {
+                lastExpiryMillis = nowMillis;
+                int deleted = changeLog.deleteExpired();
+                if (deleted > 0) {
+                    log.info("Deleted {} car changes older than {}", deleted, properties.getRetention());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Car change feed poll failed", e);
+        }
+    }
+
+    /**
+     * Completes the emitter on the subscriber's sender thread: SseEmitter is synchronized, completing it here
+     * would wait for a send stuck on a stalled connection. That sender is only freed once the container fails the
+     * write, until then the subscriber stays in closing and keeps its place under the limit.
+     */
+    private void close(Subscriber subscriber, Exception cause) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            closing.add(subscriber);
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            subscriber.queue.add(new Close(cause));
+            subscriber.backlogged = false;
+            startSending(subscriber);
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    int closingCount() {
+        return closing.size();
+    }
+
+    @Override
+    public void destroy() {
+        reader.shutdownNow();
+        subscribers.forEach(subscriber -> close(subscriber, null));
+        senders.shutdown();
+    }
+
+    private record Close(Exception cause) {
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Changes and keep-alives waiting for the sender, at most a page of changes
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Last sequence number queued, only changed on the reader thread
+        private volatile long position;
+        // Set when changes were held back for a full queue, the sender asks for more once it emptied it
+        private volatile boolean backlogged;
+        private volatile long lastProgressNanos;
+
+        private Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+    }
+}
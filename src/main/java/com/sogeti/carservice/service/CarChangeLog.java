@@ -0,0 +1,132 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.ChangeFeedProperties;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.exception.ChangesExpiredException;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persisted, gap-free log of every car change, numbered in commit order. Entries are written inside the
+ * transaction that changes the cars, so they commit or roll back with it. The numbers come from the single
+ * car_change_head row, whose lock is held until commit: a reader that sees change n has also seen every
+ * change before it, and can resume from the last number it processed.
+ */
+@Component
+@Profile("!reactive")
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class CarChangeLog {
+
+    private static final String SELECT_CHANGES = "select ch.sequence, ch.car_id, ch.change_type, ch.changed_at, "
+            + "c.make, c.model, c.version, c.number_of_doors, c.co2emission, c.gross_price, c.nett_price, c.revision "
+            + "from car_change ch left join car c on c.id = ch.car_id "
+            + "where ch.sequence > ? order by ch.sequence limit ?";
+
+    private static final RowMapper<CarChangeDTO> CHANGE_ROW_MAPPER = (resultSet, rowNum) -> {
+        long id = resultSet.getLong("car_id");
+        // Left join, the car columns are null once the car is deleted
+        CarDTO car = resultSet.getObject("revision") == null ? null : CarDTO.builder()
+                .id(id)
+                .make(resultSet.getString("make"))
+                .model(resultSet.getString("model"))
+                .version(resultSet.getString("version"))
+                .numberOfDoors(resultSet.getInt("number_of_doors"))
+                .co2Emission(resultSet.getDouble("co2emission"))
+                .grossPrice(resultSet.getDouble("gross_price"))
+                .nettPrice(resultSet.getDouble("nett_price"))
+                .revision(resultSet.getLong("revision"))
+                .build();
+        return CarChangeDTO.builder()
+                .sequence(resultSet.getLong("sequence"))
+                .type(CarChangeDTO.Type.valueOf(resultSet.getString("change_type")))
+                .id(id)
+                .changedAt(resultSet.getTimestamp("changed_at").toInstant())
+                .car(car)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeFeedProperties properties;
+
+    public CarChangeLog(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                        ChangeFeedProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Joins the writing transaction. Without one the entries still get their own, the head row and the entries
+     * must never be written apart.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        // Remote changes were logged by the instance that made them
+        if (event.remote() || event.type() == null || event.ids() == null || event.ids().isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> append(event.type(), event.ids()));
+    }
+
+    private void append(CarChangeDTO.Type type, Collection<Long> ids) {
+        // Takes the row lock that orders the writers
+        jdbcTemplate.update("update car_change_head set last_sequence = last_sequence + ? where id = 1", ids.size());
+        long sequence = lastSequence() - ids.size();
+        Timestamp changedAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            rows.add(new Object[]{++sequence, id, type.name(), changedAt});
+        }
+        jdbcTemplate.batchUpdate("insert into car_change (sequence, car_id, change_type, changed_at) values (?, ?, ?, ?)",
+                rows);
+    }
+
+    /**
+     * Changes after the given sequence number, oldest first, each with the current state of its car. A number
+     * beyond the latest change, as a lagging read replica might see it, simply has no changes yet.
+     *
+     * @throws ChangesExpiredException when changes after it were already removed by retention
+     */
+    @Transactional(readOnly = true)
+    public List<CarChangeDTO> findChangesAfter(long sequence, int limit) {
+        // Read first, every change up to it is committed and has to show up in the query below unless it expired
+        long lastSequence = lastSequence();
+        List<CarChangeDTO> changes = jdbcTemplate.query(SELECT_CHANGES, CHANGE_ROW_MAPPER, sequence, limit);
+        boolean missing = changes.isEmpty() ? sequence < lastSequence : changes.get(0).getSequence() != sequence + 1;
+        if (missing) {
+            throw new ChangesExpiredException("Changes after sequence " + sequence + " have expired, reload the cars "
+                    + "and continue from sequence " + lastSequence);
+        }
+        return changes;
+    }
+
+    /**
+     * Sequence number of the latest committed change, 0 while there has been none.
+     */
+    public long lastSequence() {
+        Long sequence = jdbcTemplate.queryForObject("select last_sequence from car_change_head where id = 1", Long.class);
+        return sequence != null ? sequence : 0;
+    }
+
+    @Transactional
+    public int deleteExpired() {
+        Timestamp oldest = Timestamp.from(Instant.now().minus(properties.getRetention()));
+        return jdbcTemplate.update("delete from car_change where changed_at < ?", oldest);
+    }
+}
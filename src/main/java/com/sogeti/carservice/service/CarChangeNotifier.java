@@ -0,0 +1,199 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.CacheCoherenceProperties;
+import com.sogeti.carservice.config.CacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the car caches of all instances coherent. Committed changes are broadcast with pg_notify, every instance
+ * LISTENs on a dedicated connection, evicts the cars the others changed and republishes their changes locally.
+ * With read replicas the evictions are repeated once the replicas have caught up with the change.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@EnableConfigurationProperties(CacheCoherenceProperties.class)
+public class CarChangeNotifier implements DisposableBean {
+
+    static final String ALL = "*";
+    // PostgreSQL rejects payloads from 8000 bytes on, larger changes invalidate everything instead
+    static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private final CacheCoherenceProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final Cache carsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter sent;
+    private final Counter received;
+    // Tells our own notifications, which every listener receives as well, apart from the other instances'
+    private final String instanceId = UUID.randomUUID().toString();
+    // Due in the order they were added, the replica lag is the same for all of them
+    private final Queue<PendingEviction> pendingEvictions = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private Thread listener;
+
+    public CarChangeNotifier(CacheCoherenceProperties properties, JdbcTemplate jdbcTemplate,
+                             DataSourceProperties dataSourceProperties, CacheManager cacheManager,
+                             ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.carsCache = cacheManager.getCache(CacheConfig.CARS_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.sent = Counter.builder("car.cache.coherence.notifications").tag("direction", "sent")
+                .description("Car change notifications exchanged with the other instances").register(meterRegistry);
+        this.received = Counter.builder("car.cache.coherence.notifications").tag("direction", "received")
+                .description("Car change notifications exchanged with the other instances").register(meterRegistry);
+        if (properties.isEnabled()) {
+            running = true;
+            listener = new Thread(this::listen, "car-change-listener");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    /**
+     * Runs inside the writing transaction, PostgreSQL only delivers the notification if that transaction commits.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        if (!properties.isEnabled() || event.remote()) {
+            return;
+        }
+        jdbcTemplate.query("select pg_notify(?, ?)", resultSet -> null, properties.getChannel(), payload(event));
+        sent.increment();
+    }
+
+    String payload(CarChangedEvent event) {
+        if (event.ids() == null) {
+            return instanceId + "|" + ALL;
+        }
+        String payload = instanceId + "|" + event.ids().stream().map(String::valueOf).collect(Collectors.joining(","));
+        return payload.getBytes(StandardCharsets.UTF_8).length <= MAX_PAYLOAD_BYTES ? payload : instanceId + "|" + ALL;
+    }
+
+    void apply(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+        received.increment();
+        String ids = payload.substring(separator + 1);
+        if (ids.equals(ALL)) {
+            invalidateAll();
+            return;
+        }
+        List<Long> changedIds = Arrays.stream(ids.split(",")).filter(id -> !id.isEmpty()).map(Long::valueOf).toList();
+        changedIds.forEach(carsCache::evict);
+        evictAgainLater(changedIds);
+        // Lets the catalogue snapshot and the other local views of the cars drop their state as well
+        eventPublisher.publishEvent(new CarChangedEvent(null, changedIds, true));
+    }
+
+    private void invalidateAll() {
+        carsCache.clear();
+        evictAgainLater(null);
+        eventPublisher.publishEvent(new CarChangedEvent(null, null, true));
+    }
+
+    // A read replica may not have replayed the change yet, a miss right after the eviction could cache the old car
+    private void evictAgainLater(List<Long> ids) {
+        if (!properties.getReplicaLag().isZero()) {
+            pendingEvictions.add(new PendingEviction(System.nanoTime() + properties.getReplicaLag().toNanos(), ids));
+        }
+    }
+
+    /**
+     * Repeats the evictions whose replica lag has passed, a null ids list clears the cache.
+     */
+    void evictPending(long nowNanos) {
+        PendingEviction eviction;
+        while ((eviction = pendingEvictions.peek()) != null && nowNanos - eviction.dueNanos() >= 0) {
+            pendingEvictions.poll();
+            if (eviction.ids() == null) {
+                carsCache.clear();
+            } else {
+                eviction.ids().forEach(carsCache::evict);
+            }
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + properties.getChannel().replace("\"", "\"\"") + "\"");
+                }
+                // Whatever changed while nobody was listening is unknown, start from empty caches
+                invalidateAll();
+                log.info("Listening for car changes on channel {}", properties.getChannel());
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                int pollTimeout = (int) properties.getPollTimeout().toMillis();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeout);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                    // Late by at most the poll timeout
+                    evictPending(System.nanoTime());
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Car change listener lost its connection, reconnecting in {}", properties.getReconnectDelay(), e);
+                    sleep(properties.getReconnectDelay().toMillis());
+                }
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private record PendingEviction(long dueNanos, List<Long> ids) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.dto.CarChangeDTO;
+
+import java.util.Collection;
+
+/**
+ * Published whenever cars are created, updated or deleted. Listeners bound to the transaction only see it after commit.
+ *
+ * @param type   what happened to the cars, null for remote changes
+ * @param ids    the changed cars, null when unknown and every car has to be assumed changed
+ * @param remote true when the change was committed by another instance, see {@link CarChangeNotifier}
+ */
+public record CarChangedEvent(CarChangeDTO.Type type, Collection<Long> ids, boolean remote) {
+
+    public CarChangedEvent(CarChangeDTO.Type type, Collection<Long> ids) {
+        this(type, ids, false);
+    }
+}
@@ -1,14 +1,28 @@
 package com.sogeti.carservice.service;
 
 import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.dto.CarPatchDTO;
+import com.sogeti.carservice.dto.CarSearchCriteria;
+import com.sogeti.carservice.dto.CarSearchResultDTO;
+import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CarService {
     List<CarDTO> getAllCars();
+    String getCatalogueVersion();
+    CarPageDTO getCarsAfter(Long after, int limit);
+    void exportCars(Consumer<CarDTO> consumer);
+    CarSearchResultDTO searchCars(CarSearchCriteria criteria, Pageable pageable);
     CarDTO createCar(CarDTO carDTO);
     CarDTO getCarById(Long id);
+    List<CarDTO> getCarsByIds(Collection<Long> ids);
     CarDTO updateCar(Long id, CarDTO carDTO);
+    CarDTO patchCar(Long id, CarPatchDTO carPatchDTO);
     void deleteCar(Long id);
+    void deleteCar(Long id, Long expectedRevision);
     boolean isValidToken(String token);
 }
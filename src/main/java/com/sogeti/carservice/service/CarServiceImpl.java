@@ -1,32 +1,77 @@
 package com.sogeti.carservice.service;
 
 import com.sogeti.carservice.client.IAMFeignClient;
+import com.sogeti.carservice.config.CacheConfig;
+import com.sogeti.carservice.dto.CarChangeDTO;
 import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.dto.CarPatchDTO;
+import com.sogeti.carservice.dto.CarSearchCriteria;
+import com.sogeti.carservice.dto.CarSearchResultDTO;
+import com.sogeti.carservice.exception.InvalidRequestException;
+import com.sogeti.carservice.exception.PreconditionFailedException;
 import com.sogeti.carservice.exception.TokenValidationException;
 import com.sogeti.carservice.model.Car;
 import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.repository.CarSpecifications;
+import com.sogeti.carservice.security.JwksTokenVerifier;
+import com.sogeti.carservice.security.TokenValidationBatcher;
+import com.sogeti.carservice.security.TokenValidationCache;
 import com.sogeti.carservice.utility.CarMapper;
 import feign.FeignException;
 import lombok.AllArgsConstructor;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@Profile("!reactive")
 @AllArgsConstructor
+@Timed("car.service")
 public class CarServiceImpl implements CarService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    // Only columns that exist on Car may be sorted on, anything else would fail inside the query
+    static final Set<String> SORTABLE_FIELDS = Set.of("id", "make", "model", "version", "numberOfDoors",
+            "co2Emission", "grossPrice", "nettPrice");
+
     private final CarRepository carRepository;
     private final CarMapper carMapper;
     @Qualifier("iamFeignClient")
     private final IAMFeignClient iamFeignClient;
+    private final TokenValidationCache tokenValidationCache;
+    private final JwksTokenVerifier jwksTokenVerifier;
+    private final TokenValidationBatcher tokenValidationBatcher;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional(readOnly = true)
     public List<CarDTO> getAllCars() {
         List<Car> cars = carRepository.findAll();
         return cars.stream()
@@ -35,39 +80,194 @@ public class CarServiceImpl implements CarService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public String getCatalogueVersion() {
+        CarRepository.CatalogueStats stats = carRepository.findCatalogueStats();
+        return stats.getCount() + "-" + valueOrZero(stats.getMaxId()) + "-" + valueOrZero(stats.getIdSum())
+                + "-" + valueOrZero(stats.getRevisionSum());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CarPageDTO getCarsAfter(Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page follows
+        List<Car> cars = carRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L,
+                PageRequest.ofSize(pageSize + 1));
+        boolean hasMore = cars.size() > pageSize;
+        List<CarDTO> page = cars.stream()
+                .limit(pageSize)
+                .map(carMapper::carToCarDTO)
+                .toList();
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+        return CarPageDTO.builder().cars(page).nextCursor(nextCursor).build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCars(Consumer<CarDTO> consumer) {
+        // The transaction keeps the JDBC cursor open, PostgreSQL only honours the fetch size outside auto-commit
+        try (Stream<CarDTO> cars = carRepository.streamAllOrderById()) {
+            cars.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CarSearchResultDTO searchCars(CarSearchCriteria criteria, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_FIELDS.contains(order.getProperty())) {
+                throw new InvalidRequestException("Cannot sort on '" + order.getProperty() + "'");
+            }
+        }
+        // Ties are broken by id so that rows do not move between pages
+        Sort sort = pageable.getSort().and(Sort.by("id"));
+        PageRequest pageRequest = PageRequest.of(pageable.getPageNumber(),
+                Math.min(pageable.getPageSize(), MAX_PAGE_SIZE), sort);
+        Page<CarDTO> page = carRepository.findAll(CarSpecifications.matching(criteria), pageRequest)
+                .map(carMapper::carToCarDTO);
+        return CarSearchResultDTO.builder()
+                .cars(page.getContent())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.CARS_CACHE, key = "#result.id")
     public CarDTO createCar(CarDTO carDTO) {
         Car car = carMapper.carDTOToCar(carDTO);
-        return carMapper.carToCarDTO(carRepository.save(car));
+        CarDTO created = carMapper.carToCarDTO(carRepository.save(car));
+        // The change log entry is written by a listener inside this transaction, see CarChangeLog
+        eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.CREATED, List.of(created.getId())));
+        return created;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CARS_CACHE, key = "#id", sync = true)
     public CarDTO getCarById(Long id) {
         Car car = carRepository.findById(id).orElse(null);
         return (car != null) ? carMapper.carToCarDTO(car) : null;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<CarDTO> getCarsByIds(Collection<Long> ids) {
+        return carRepository.findAllById(ids).stream()
+                .map(carMapper::carToCarDTO)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.CARS_CACHE, key = "#id", unless = "#result == null")
     public CarDTO updateCar(Long id, CarDTO carDTO) {
-        Car existingCar = carRepository.findById(id).orElse(null);
-        if (existingCar != null) {
-            Car updatedCar = carRepository.save(carMapper.carDTOToCar(carDTO));
-            return carMapper.carToCarDTO(updatedCar);
+        Car car = carMapper.carDTOToCar(carDTO);
+        Long expectedRevision = carDTO.getRevision();
+        Long matchedRevision = revisionToMatch(expectedRevision);
+        if (carRepository.updateById(id, car, matchedRevision) == 0) {
+            checkNotModifiedConcurrently(id, expectedRevision);
+            return null;
         }
-        return null;
+        eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(id)));
+        // The row now holds exactly the request values, only an update without a revision needs to read the new one
+        car.setId(id);
+        car.setRevision(matchedRevision != null ? matchedRevision + 1 : carRepository.findRevisionById(id));
+        return carMapper.carToCarDTO(car);
     }
 
     @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.CARS_CACHE, key = "#id", unless = "#result == null")
+    public CarDTO patchCar(Long id, CarPatchDTO carPatchDTO) {
+        Map<String, Object> changedFields = changedFields(carPatchDTO);
+        Long expectedRevision = carPatchDTO.getRevision();
+        if (!changedFields.isEmpty()) {
+            if (carRepository.updateFieldsById(id, changedFields, revisionToMatch(expectedRevision)) == 0) {
+                checkNotModifiedConcurrently(id, expectedRevision);
+                return null;
+            }
+            eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(id)));
+        }
+        // Same transaction, so the response reflects exactly this update
+        CarDTO patchedCar = carRepository.findById(id).map(carMapper::carToCarDTO).orElse(null);
+        if (patchedCar == null) {
+            // An empty patch of a missing car still has to fail If-Match
+            checkNotModifiedConcurrently(id, expectedRevision);
+        }
+        return patchedCar;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#id")
     public void deleteCar(Long id) {
-        carRepository.deleteById(id);
+        // Deleting an unknown id is not a change, nothing goes to the change log
+        if (carRepository.deleteByIdAndRevision(id, null) > 0) {
+            eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(id)));
+        }
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#id")
+    public void deleteCar(Long id, Long expectedRevision) {
+        if (carRepository.deleteByIdAndRevision(id, revisionToMatch(expectedRevision)) == 0) {
+            checkNotModifiedConcurrently(id, expectedRevision);
+        } else {
+            eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(id)));
+        }
+    }
+
+    private void checkNotModifiedConcurrently(Long id, Long expectedRevision) {
+        if (expectedRevision == null) {
+            return;
+        }
+        // Any revision would have matched, so the car does not exist
+        if (expectedRevision == CarDTO.ANY_REVISION) {
+            throw new PreconditionFailedException("Car " + id + " does not exist");
+        }
+        // Nothing matched: either the car does not exist or its revision moved on
+        if (carRepository.existsById(id)) {
+            throw new PreconditionFailedException("Car " + id + " is no longer at revision " + expectedRevision);
+        }
+    }
+
+    // The revision the repository compares, none for If-Match: *
+    private static Long revisionToMatch(Long expectedRevision) {
+        return expectedRevision != null && expectedRevision == CarDTO.ANY_REVISION ? null : expectedRevision;
+    }
+
+    private static long valueOrZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private static Map<String, Object> changedFields(CarPatchDTO carPatchDTO) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putIfPresent(fields, "make", carPatchDTO.getMake());
+        putIfPresent(fields, "model", carPatchDTO.getModel());
+        putIfPresent(fields, "version", carPatchDTO.getVersion());
+        putIfPresent(fields, "numberOfDoors", carPatchDTO.getNumberOfDoors());
+        putIfPresent(fields, "co2Emission", carPatchDTO.getCo2Emission());
+        putIfPresent(fields, "grossPrice", carPatchDTO.getGrossPrice());
+        putIfPresent(fields, "nettPrice", carPatchDTO.getNettPrice());
+        return fields;
+    }
+
+    private static void putIfPresent(Map<String, Object> fields, String attribute, Object value) {
+        if (value != null) {
+            fields.put(attribute, value);
+        }
     }
 
     @Override
     public boolean isValidToken(String token) {
         try {
-            String authorizationHeader = "Bearer " + token;
-            // Call the token-validation endpoint of iam-service using Feign Client
-            ResponseEntity<String> response = iamFeignClient.validateToken(authorizationHeader);
-            if (response.getStatusCode() != HttpStatus.OK) {
+            if (!tokenValidationCache.validate(token, this::validate)) {
                 log.error("User is not authenticated");
                 throw new TokenValidationException("Token validation failed");
             }
@@ -78,4 +278,50 @@ public class CarServiceImpl implements CarService {
         log.info("User is successfully authenticated");
         return true;
     }
+
+    private boolean validate(String token) {
+        if (jwksTokenVerifier.isEnabled()) {
+            Optional<Boolean> verified = jwksTokenVerifier.verify(token);
+            if (verified.isPresent()) {
+                return verified.get();
+            }
+            log.warn("No JWKS key available, falling back to iam-service token validation");
+        }
+        return validateWithIam(token);
+    }
+
+    private boolean validateWithIam(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            boolean valid = callIam(token);
+            outcome = valid ? "valid" : "invalid";
+            return valid;
+        } finally {
+            sample.stop(meterRegistry.timer("iam.token.validation.remote", "outcome", outcome));
+        }
+    }
+
+    private boolean callIam(String token) {
+        if (tokenValidationBatcher.isEnabled()) {
+            // Joins the tokens of concurrent requests into one bulk call, failures propagate like a single call's
+            try {
+                return tokenValidationBatcher.validate(token);
+            } catch (FeignException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // E.g. a malformed bulk answer: rejects this request like an unreachable iam-service, nothing is cached
+                throw new TokenValidationException("Token validation failed");
+            }
+        }
+        try {
+            String authorizationHeader = "Bearer " + token;
+            // Call the token-validation endpoint of iam-service using Feign Client
+            ResponseEntity<String> response = iamFeignClient.validateToken(authorizationHeader);
+            return response.getStatusCode() == HttpStatus.OK;
+        } catch(FeignException.Unauthorized | FeignException.Forbidden e) {
+            // A definite rejection can be cached, any other Feign failure is propagated and retried next time
+            return false;
+        }
+    }
 }
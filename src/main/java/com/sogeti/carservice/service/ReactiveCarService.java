@@ -0,0 +1,16 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCarService {
+    Flux<CarDTO> getAllCars();
+    Mono<CarPageDTO> getCarsAfter(Long after, int limit);
+    Mono<CarDTO> createCar(CarDTO carDTO);
+    Mono<CarDTO> getCarById(Long id);
+    Mono<CarDTO> updateCar(Long id, CarDTO carDTO);
+    Mono<Void> deleteCar(Long id, Long expectedRevision);
+    Mono<Boolean> isValidToken(String token);
+}
@@ -0,0 +1,128 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.client.ReactiveIamClient;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.exception.PreconditionFailedException;
+import com.sogeti.carservice.exception.TokenValidationException;
+import com.sogeti.carservice.repository.ReactiveCarRepository;
+import com.sogeti.carservice.security.JwksTokenVerifier;
+import com.sogeti.carservice.security.TokenValidationCache;
+import com.sogeti.carservice.utility.CarMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link CarService} on R2DBC and WebClient, nothing in here blocks an event loop thread.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@AllArgsConstructor
+public class ReactiveCarServiceImpl implements ReactiveCarService {
+
+    private final ReactiveCarRepository carRepository;
+    private final CarMapper carMapper;
+    private final ReactiveIamClient iamClient;
+    private final TokenValidationCache tokenValidationCache;
+    private final JwksTokenVerifier jwksTokenVerifier;
+
+    @Override
+    public Flux<CarDTO> getAllCars() {
+        return carRepository.findAllByOrderByIdAsc().map(carMapper::carToCarDTO);
+    }
+
+    @Override
+    public Mono<CarPageDTO> getCarsAfter(Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, CarServiceImpl.MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page follows
+        return carRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, PageRequest.ofSize(pageSize + 1))
+                .map(carMapper::carToCarDTO)
+                .collectList()
+                .map(cars -> {
+                    boolean hasMore = cars.size() > pageSize;
+                    List<CarDTO> page = hasMore ? cars.subList(0, pageSize) : cars;
+                    Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+                    return CarPageDTO.builder().cars(page).nextCursor(nextCursor).build();
+                });
+    }
+
+    @Override
+    public Mono<CarDTO> createCar(CarDTO carDTO) {
+        return carRepository.insert(carMapper.carDTOToCar(carDTO)).map(carMapper::carToCarDTO);
+    }
+
+    @Override
+    public Mono<CarDTO> getCarById(Long id) {
+        return carRepository.findById(id).map(carMapper::carToCarDTO);
+    }
+
+    @Override
+    public Mono<CarDTO> updateCar(Long id, CarDTO carDTO) {
+        Long expectedRevision = carDTO.getRevision();
+        return carRepository.updateById(id, carMapper.carDTOToCar(carDTO), revisionToMatch(expectedRevision))
+                .map(carMapper::carToCarDTO)
+                .switchIfEmpty(checkNotModifiedConcurrently(id, expectedRevision));
+    }
+
+    @Override
+    public Mono<Void> deleteCar(Long id, Long expectedRevision) {
+        return carRepository.deleteByIdAndRevision(id, revisionToMatch(expectedRevision))
+                .flatMap(deleted -> deleted == 0 ? checkNotModifiedConcurrently(id, expectedRevision) : Mono.empty())
+                .then();
+    }
+
+    private <T> Mono<T> checkNotModifiedConcurrently(Long id, Long expectedRevision) {
+        if (expectedRevision == null) {
+            return Mono.empty();
+        }
+        // Any revision would have matched, so the car does not exist
+        if (expectedRevision == CarDTO.ANY_REVISION) {
+            return Mono.error(new PreconditionFailedException("Car " + id + " does not exist"));
+        }
+        // Nothing matched: either the car does not exist or its revision moved on
+        return carRepository.existsById(id).flatMap(exists -> exists
+                ? Mono.error(new PreconditionFailedException("Car " + id + " is no longer at revision " + expectedRevision))
+                : Mono.empty());
+    }
+
+    // The revision the repository compares, none for If-Match: *
+    private static Long revisionToMatch(Long expectedRevision) {
+        return expectedRevision != null && expectedRevision == CarDTO.ANY_REVISION ? null : expectedRevision;
+    }
+
+    @Override
+    public Mono<Boolean> isValidToken(String token) {
+        // Cancelling one request must not cancel a validation other requests for the same token wait on
+        return Mono.fromFuture(tokenValidationCache.validateAsync(token, this::validate), true)
+                .onErrorMap(WebClientException.class, e -> new TokenValidationException("Token validation failed"))
+                .flatMap(valid -> {
+                    if (!valid) {
+                        log.error("User is not authenticated");
+                        return Mono.error(new TokenValidationException("Token validation failed"));
+                    }
+                    return Mono.just(true);
+                });
+    }
+
+    private CompletableFuture<Boolean> validate(String token) {
+        if (jwksTokenVerifier.isEnabled()) {
+            Optional<Boolean> verified = jwksTokenVerifier.verify(token);
+            if (verified.isPresent()) {
+                return CompletableFuture.completedFuture(verified.get());
+            }
+            log.warn("No JWKS key available, falling back to iam-service token validation");
+        }
+        return iamClient.validateToken("Bearer " + token).toFuture();
+    }
+}
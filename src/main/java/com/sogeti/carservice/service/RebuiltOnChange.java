@@ -0,0 +1,51 @@
+package com.sogeti.carservice.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A value derived from the whole catalogue, built on first use and dropped when cars change.
+ * Concurrent callers after a change wait for a single rebuild.
+ */
+final class RebuiltOnChange<T> {
+
+    private final Supplier<T> builder;
+    // Not synchronized: a virtual thread waiting for the rebuild must not pin its carrier
+    private final Lock rebuildLock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile T value;
+
+    RebuiltOnChange(Supplier<T> builder) {
+        this.builder = builder;
+    }
+
+    T get() {
+        T current = value;
+        if (current != null) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            current = value;
+            if (current != null) {
+                return current;
+            }
+            long buildGeneration = generation.get();
+            T built = builder.get();
+            // A change committed while the rows were read may be missing from this build, serve it once but do not keep it
+            if (generation.get() == buildGeneration) {
+                value = built;
+            }
+            return built;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        value = null;
+    }
+}
@@ -0,0 +1,271 @@
+package com.sogeti.carservice.utility;
+
+import com.sogeti.carservice.dto.CarDTO;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read-only columnar copy of the car table for aggregations. The numeric fields live in primitive buffers outside
+ * the Java heap, make, model and version are dictionary encoded as int codes. A scan over all cars therefore
+ * reads a few contiguous arrays and allocates nothing, no matter how large the catalogue is. Changes are applied
+ * with {@link #withChanges}, which copies the unchanged rows instead of reading the table again.
+ */
+public final class CarColumns {
+
+    private final int size;
+    private final LongBuffer ids;
+    private final IntBuffer numberOfDoors;
+    private final DoubleBuffer co2Emission;
+    private final DoubleBuffer grossPrice;
+    private final DoubleBuffer nettPrice;
+    private final IntBuffer makes;
+    private final IntBuffer models;
+    private final IntBuffer versions;
+    private final List<String> makeDictionary;
+    private final List<String> modelDictionary;
+    private final List<String> versionDictionary;
+
+    private CarColumns(Builder builder) {
+        this.size = builder.size;
+        this.ids = builder.ids.duplicate().flip();
+        this.numberOfDoors = builder.numberOfDoors.duplicate().flip();
+        this.co2Emission = builder.co2Emission.duplicate().flip();
+        this.grossPrice = builder.grossPrice.duplicate().flip();
+        this.nettPrice = builder.nettPrice.duplicate().flip();
+        this.makes = builder.makes.duplicate().flip();
+        this.models = builder.models.duplicate().flip();
+        this.versions = builder.versions.duplicate().flip();
+        // Not List.copyOf, a missing value is encoded like any other and its dictionary entry is null
+        this.makeDictionary = Collections.unmodifiableList(new ArrayList<>(builder.makes.dictionary));
+        this.modelDictionary = Collections.unmodifiableList(new ArrayList<>(builder.models.dictionary));
+        this.versionDictionary = Collections.unmodifiableList(new ArrayList<>(builder.versions.dictionary));
+    }
+
+    public static Builder builder() {
+        return new Builder(Builder.INITIAL_CAPACITY);
+    }
+
+    /**
+     * Copy of these columns with some cars changed. A changed id is replaced by its car in cars, which is appended
+     * when the id was not here before, and removed when cars has none. The other rows are copied as they are.
+     *
+     * @param changedIds ids of the cars that were created, updated or deleted
+     * @param cars       the current state of the changed cars that still exist
+     */
+    public CarColumns withChanges(Collection<Long> changedIds, Collection<CarDTO> cars) {
+        long[] changed = changedIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        // By id, the cars that are new are appended in the order a full load would have them
+        Map<Long, CarDTO> current = new TreeMap<>();
+        cars.forEach(car -> current.put(car.getId(), car));
+        Builder builder = new Builder(Math.max(size + current.size(), Builder.INITIAL_CAPACITY));
+        int[] makeCodes = EncodedColumn.unmapped(makeDictionary);
+        int[] modelCodes = EncodedColumn.unmapped(modelDictionary);
+        int[] versionCodes = EncodedColumn.unmapped(versionDictionary);
+        for (int row = 0; row < size; row++) {
+            long id = ids.get(row);
+            if (Arrays.binarySearch(changed, id) < 0) {
+                builder.ids.put(id);
+                builder.numberOfDoors.put(numberOfDoors.get(row));
+                builder.co2Emission.put(co2Emission.get(row));
+                builder.grossPrice.put(grossPrice.get(row));
+                builder.nettPrice.put(nettPrice.get(row));
+                builder.makes.add(makes.get(row), makeDictionary, makeCodes);
+                builder.models.add(models.get(row), modelDictionary, modelCodes);
+                builder.versions.add(versions.get(row), versionDictionary, versionCodes);
+                builder.size++;
+            } else {
+                CarDTO car = current.remove(id);
+                if (car != null) {
+                    builder.add(car);
+                }
+            }
+        }
+        current.values().forEach(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int row) {
+        return ids.get(row);
+    }
+
+    public int numberOfDoors(int row) {
+        return numberOfDoors.get(row);
+    }
+
+    public double co2Emission(int row) {
+        return co2Emission.get(row);
+    }
+
+    public double grossPrice(int row) {
+        return grossPrice.get(row);
+    }
+
+    public double nettPrice(int row) {
+        return nettPrice.get(row);
+    }
+
+    /**
+     * Dictionary code of the make, an index into {@link #makeDictionary()}.
+     */
+    public int make(int row) {
+        return makes.get(row);
+    }
+
+    public int model(int row) {
+        return models.get(row);
+    }
+
+    public int version(int row) {
+        return versions.get(row);
+    }
+
+    public List<String> makeDictionary() {
+        return makeDictionary;
+    }
+
+    public List<String> modelDictionary() {
+        return modelDictionary;
+    }
+
+    public List<String> versionDictionary() {
+        return versionDictionary;
+    }
+
+    /**
+     * Off-heap bytes held by the columns, the dictionaries are not included.
+     */
+    public long offHeapBytes() {
+        return (long) ids.capacity() * Long.BYTES
+                + (long) (numberOfDoors.capacity() + makes.capacity() + models.capacity() + versions.capacity()) * Integer.BYTES
+                + (long) (co2Emission.capacity() + grossPrice.capacity() + nettPrice.capacity()) * Double.BYTES;
+    }
+
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int size;
+        private LongBuffer ids;
+        private IntBuffer numberOfDoors;
+        private DoubleBuffer co2Emission;
+        private DoubleBuffer grossPrice;
+        private DoubleBuffer nettPrice;
+        private final EncodedColumn makes;
+        private final EncodedColumn models;
+        private final EncodedColumn versions;
+
+        private Builder(int capacity) {
+            this.ids = allocate(capacity, Long.BYTES).asLongBuffer();
+            this.numberOfDoors = allocate(capacity, Integer.BYTES).asIntBuffer();
+            this.co2Emission = allocate(capacity, Double.BYTES).asDoubleBuffer();
+            this.grossPrice = allocate(capacity, Double.BYTES).asDoubleBuffer();
+            this.nettPrice = allocate(capacity, Double.BYTES).asDoubleBuffer();
+            this.makes = new EncodedColumn(capacity);
+            this.models = new EncodedColumn(capacity);
+            this.versions = new EncodedColumn(capacity);
+        }
+
+        public Builder add(CarDTO car) {
+            if (!ids.hasRemaining()) {
+                grow();
+            }
+            ids.put(car.getId() != null ? car.getId() : 0L);
+            numberOfDoors.put(car.getNumberOfDoors());
+            co2Emission.put(car.getCo2Emission());
+            grossPrice.put(car.getGrossPrice());
+            nettPrice.put(car.getNettPrice());
+            makes.add(car.getMake());
+            models.add(car.getModel());
+            versions.add(car.getVersion());
+            size++;
+            return this;
+        }
+
+        public CarColumns build() {
+            return new CarColumns(this);
+        }
+
+        private void grow() {
+            int capacity = ids.capacity() * 2;
+            ids = allocate(capacity, Long.BYTES).asLongBuffer().put(ids.flip());
+            numberOfDoors = allocate(capacity, Integer.BYTES).asIntBuffer().put(numberOfDoors.flip());
+            co2Emission = allocate(capacity, Double.BYTES).asDoubleBuffer().put(co2Emission.flip());
+            grossPrice = allocate(capacity, Double.BYTES).asDoubleBuffer().put(grossPrice.flip());
+            nettPrice = allocate(capacity, Double.BYTES).asDoubleBuffer().put(nettPrice.flip());
+            makes.grow(capacity);
+            models.grow(capacity);
+            versions.grow(capacity);
+        }
+    }
+
+    private static final class EncodedColumn {
+
+        private IntBuffer codes;
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+
+        private EncodedColumn(int capacity) {
+            this.codes = allocate(capacity, Integer.BYTES).asIntBuffer();
+        }
+
+        /**
+         * Codes of another dictionary in this one, filled by {@link #add(int, List, int[])} as they are met.
+         */
+        static int[] unmapped(List<String> otherDictionary) {
+            int[] mapped = new int[otherDictionary.size()];
+            Arrays.fill(mapped, -1);
+            return mapped;
+        }
+
+        void add(String value) {
+            codes.put(encode(value));
+        }
+
+        // Values no longer used by any row are left out, so the dictionaries do not collect them over many changes
+        void add(int otherCode, List<String> otherDictionary, int[] mapped) {
+            if (mapped[otherCode] < 0) {
+                mapped[otherCode] = encode(otherDictionary.get(otherCode));
+            }
+            codes.put(mapped[otherCode]);
+        }
+
+        private int encode(String value) {
+            Integer code = index.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                index.put(value, code);
+            }
+            return code;
+        }
+
+        void grow(int capacity) {
+            codes = allocate(capacity, Integer.BYTES).asIntBuffer().put(codes.flip());
+        }
+
+        IntBuffer duplicate() {
+            return codes.duplicate();
+        }
+    }
+
+    private static ByteBuffer allocate(int capacity, int bytes) {
+        // Native order, so reading a value is a plain load without byte swapping
+        return ByteBuffer.allocateDirect(capacity * bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,88 @@
+package com.sogeti.carservice.utility;
+
+import com.sogeti.carservice.dto.CarDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes CarDTO and List&lt;CarDTO&gt; responses with {@link CarJsonWriter} instead of Jackson. As application/json
+ * the bytes are the ones Jackson would write, so clients cannot tell the difference. Lists can also be requested
+ * in the columnar shape with Accept: application/vnd.car-columns+json. Request bodies are still read by Jackson.
+ */
+public class CarJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String APPLICATION_CAR_COLUMNS_JSON_VALUE = "application/vnd.car-columns+json";
+    public static final MediaType APPLICATION_CAR_COLUMNS_JSON = MediaType.parseMediaType(APPLICATION_CAR_COLUMNS_JSON_VALUE);
+
+    public CarJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, APPLICATION_CAR_COLUMNS_JSON);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolvableType = ResolvableType.forType(type != null ? type : clazz);
+        boolean carList = List.class.isAssignableFrom(resolvableType.toClass())
+                && resolvableType.as(List.class).getGeneric(0).toClass() == CarDTO.class;
+        if (mediaType != null && APPLICATION_CAR_COLUMNS_JSON.isCompatibleWith(mediaType)
+                && !MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+            return carList;
+        }
+        return carList || resolvableType.toClass() == CarDTO.class;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // Used when only the class is known, as for SseEmitter data, where the element type of a list is not
+        return clazz == CarDTO.class;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        // Only lists have a columnar shape
+        return clazz == CarDTO.class ? List.of(MediaType.APPLICATION_JSON) : getSupportedMediaTypes();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        if (value instanceof CarDTO car) {
+            CarJsonWriter.writeCar(car, outputMessage.getBody());
+        } else if (contentType != null && APPLICATION_CAR_COLUMNS_JSON.isCompatibleWith(contentType)) {
+            CarJsonWriter.writeColumns((List<CarDTO>) value, outputMessage.getBody());
+        } else {
+            CarJsonWriter.writeCars((List<CarDTO>) value, outputMessage.getBody());
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Cars are read by the Jackson converter", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Cars are read by the Jackson converter", inputMessage);
+    }
+}
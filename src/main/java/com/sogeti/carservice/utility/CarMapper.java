@@ -3,9 +3,16 @@ package com.sogeti.carservice.utility;
 import com.sogeti.carservice.dto.CarDTO;
 import com.sogeti.carservice.model.Car;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 
 @Mapper(componentModel = "spring")
 public interface CarMapper {
     CarDTO carToCarDTO(Car car);
+    // The revision is owned by Hibernate, a client value only serves as the expected revision
+    @Mapping(target = "revision", ignore = true)
     Car carDTOToCar(CarDTO carDTO);
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "revision", ignore = true)
+    void updateCarFromCarDTO(CarDTO carDTO, @MappingTarget Car car);
 }
@@ -0,0 +1,63 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Allocates car ids from the pooled car_id_seq sequence that Car.id uses. A database created by the former
+ * ddl-auto update has an IDENTITY id column instead, which is dropped, and the sequence is started after its
+ * highest id. In Java because PostgreSQL and H2 share no SQL to drop an IDENTITY only where there is one or to
+ * restart a sequence at a computed value.
+ */
+public class V1_1__Car_id_sequence extends BaseJavaMigration {
+
+    // allocationSize of Car.id, Hibernate uses the 50 ids up to every value it takes from the sequence
+    private static final long ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            dropGeneratedId(connection, statement);
+            statement.execute("create sequence if not exists car_id_seq start with 1 increment by " + ALLOCATION_SIZE);
+            // A serial column from an even older schema already has the sequence, with increment 1
+            statement.execute("alter sequence car_id_seq increment by " + ALLOCATION_SIZE);
+            try (ResultSet maxId = statement.executeQuery("select max(id) from car")) {
+                maxId.next();
+                long highest = maxId.getLong(1);
+                if (!maxId.wasNull()) {
+                    // The first block Hibernate takes then starts right after the existing cars
+                    statement.execute("alter sequence car_id_seq restart with " + (highest + ALLOCATION_SIZE));
+                }
+            }
+        }
+    }
+
+    private static void dropGeneratedId(Connection connection, Statement statement) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        boolean upperCase = metaData.storesUpperCaseIdentifiers();
+        String columnDefault;
+        boolean generated;
+        try (ResultSet column = metaData.getColumns(null, connection.getSchema(),
+                upperCase ? "CAR" : "car", upperCase ? "ID" : "id")) {
+            if (!column.next()) {
+                return;
+            }
+            columnDefault = column.getString("COLUMN_DEF");
+            generated = "YES".equals(column.getString("IS_AUTOINCREMENT"));
+        }
+        if (columnDefault != null) {
+            // serial: the default draws from car_id_seq, which stays
+            statement.execute("alter table car alter column id drop default");
+        } else if (generated) {
+            // IDENTITY, dropping it also drops its own sequence on PostgreSQL
+            statement.execute("alter table car alter column id drop identity");
+        }
+    }
+}
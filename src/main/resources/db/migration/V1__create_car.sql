@@ -0,0 +1,19 @@
+-- Schema as previously created by hibernate ddl-auto update. IF NOT EXISTS lets databases from before the
+-- migrations be baselined at version 0 and still run these scripts. Their id column and its IDENTITY are
+-- moved to the car_id_seq sequence by V1_1.
+
+create table if not exists car (
+    id              bigint           not null,
+    make            varchar(255),
+    model           varchar(255),
+    version         varchar(255),
+    number_of_doors integer          not null,
+    co2emission     double precision not null,
+    gross_price     double precision not null,
+    nett_price      double precision not null,
+    primary key (id)
+);
+
+-- Optimistic lock, named revision because version is the car model version. Not in the ddl-auto era schema,
+-- added on its own so baselined databases get it as well
+alter table car add column if not exists revision bigint default 0 not null;
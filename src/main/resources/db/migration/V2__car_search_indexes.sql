@@ -0,0 +1,7 @@
+-- Search filters: make, make+model and make+model+version share the composite index,
+-- model on its own and the price and CO2 ranges use their own
+create index if not exists idx_car_make_model_version on car (make, model, version);
+create index if not exists idx_car_model on car (model);
+create index if not exists idx_car_gross_price on car (gross_price);
+create index if not exists idx_car_nett_price on car (nett_price);
+create index if not exists idx_car_co2_emission on car (co2emission);
@@ -0,0 +1,24 @@
+-- Change data feed of the car table, see CarChangeLog. Every committed create, update and delete adds one row
+-- per car, numbered in commit order.
+
+-- Writers take the next sequence numbers from this single row. Its row lock is held until the writing transaction
+-- commits, so a reader can never see a higher sequence number before a lower one.
+create table car_change_head (
+    id            integer not null,
+    last_sequence bigint  not null,
+    primary key (id)
+);
+
+insert into car_change_head (id, last_sequence) values (1, 0);
+
+-- No foreign key to car, the changes of deleted cars stay in the log
+create table car_change (
+    sequence    bigint                   not null,
+    car_id      bigint                   not null,
+    change_type varchar(16)              not null,
+    changed_at  timestamp with time zone not null,
+    primary key (sequence)
+);
+
+-- Retention deletes by age
+create index idx_car_change_changed_at on car_change (changed_at);
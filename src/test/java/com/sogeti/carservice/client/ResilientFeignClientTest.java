@@ -0,0 +1,92 @@
+package com.sogeti.carservice.client;
+
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientFeignClientTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST,
+            "http://iam-service/api/accounts/token-validation", Map.of(), null, StandardCharsets.UTF_8, null);
+
+    private final CircuitBreaker circuitBreaker = CircuitBreaker.of("iam-service", CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .recordResult(result -> result instanceof Response response && response.status() >= 500)
+            .build());
+
+    @Test
+    void testServerErrorsOpenTheCircuit() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ResilientFeignClient client = new ResilientFeignClient((request, options) -> {
+            calls.incrementAndGet();
+            return response(request, 503);
+        }, circuitBreaker, Bulkhead.ofDefaults("iam-service"));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(503, client.execute(REQUEST, new Request.Options()).status());
+        }
+        IOException rejected = assertThrows(IOException.class, () -> client.execute(REQUEST, new Request.Options()));
+
+        assertInstanceOf(CallNotPermittedException.class, rejected.getCause());
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testRejectionsAreAnswersNotFailures() throws IOException {
+        ResilientFeignClient client = new ResilientFeignClient((request, options) -> response(request, 401),
+                circuitBreaker, Bulkhead.ofDefaults("iam-service"));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(401, client.execute(REQUEST, new Request.Options()).status());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testFullBulkheadFailsFast() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Bulkhead bulkhead = Bulkhead.of("iam-service", BulkheadConfig.custom().maxConcurrentCalls(1).build());
+        ResilientFeignClient client = new ResilientFeignClient((request, options) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(request, 200);
+        }, circuitBreaker, bulkhead);
+
+        CompletableFuture<Response> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return client.execute(REQUEST, new Request.Options());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        entered.await();
+
+        assertThrows(IOException.class, () -> client.execute(REQUEST, new Request.Options()));
+        release.countDown();
+        assertEquals(200, first.get().status());
+    }
+
+    private static Response response(Request request, int status) {
+        return Response.builder().request(request).status(status).headers(Map.of()).build();
+    }
+}
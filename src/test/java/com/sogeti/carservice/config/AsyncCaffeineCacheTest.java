@@ -0,0 +1,75 @@
+package com.sogeti.carservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncCaffeineCacheTest {
+
+    private final AsyncCaffeineCache cache = new AsyncCaffeineCache("cars", Caffeine.newBuilder().buildAsync(), true);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        Future<String> first = executor.submit(() -> cache.get(1L, this::blockingLoad));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<String> second = executor.submit(() -> cache.get(1L, this::blockingLoad));
+
+        release.countDown();
+
+        assertEquals("car", first.get(5, TimeUnit.SECONDS));
+        assertEquals("car", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals("car", cache.get(1L).get());
+    }
+
+    @Test
+    void testEvictDuringLoadIsNotCached() throws Exception {
+        Future<String> load = executor.submit(() -> cache.get(1L, this::blockingLoad));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evict(1L);
+        release.countDown();
+
+        assertEquals("car", load.get(5, TimeUnit.SECONDS));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void testMissingValueIsCachedButFailureIsNot() {
+        assertNull(cache.get(1L, () -> null));
+        assertNotNull(cache.get(1L));
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(2L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertNull(cache.get(2L));
+        assertEquals("car", cache.get(2L, () -> "car"));
+    }
+
+    private String blockingLoad() throws InterruptedException {
+        loads.incrementAndGet();
+        loading.countDown();
+        release.await();
+        return "car";
+    }
+}
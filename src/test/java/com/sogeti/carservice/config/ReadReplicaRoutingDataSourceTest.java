@@ -0,0 +1,128 @@
+package com.sogeti.carservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private DataSource primary;
+    private DataSource replica;
+    private ReadReplicaRoutingDataSource routingDataSource;
+    private String writer = "alice";
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+        routingDataSource = new ReadReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(2), 100,
+                () -> writer, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void testWritesUsePrimary() throws SQLException {
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void testPrimaryReadsUsePrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, PrimaryReads.call(this::connection));
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void testConnectionsWithOtherCredentialsAreNotSupported() {
+        assertThrows(SQLFeatureNotSupportedException.class, () -> routingDataSource.getConnection("postgres", "admin"));
+    }
+
+    @Test
+    void testUnavailableReplicaFallsBackToPrimaryUntilHealthy() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(0, routingDataSource.healthyReplicas());
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(replica, times(1)).getConnection();
+
+        reset(replica);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+        routingDataSource.checkHealth(Duration.ofSeconds(1));
+
+        assertEquals(1, routingDataSource.healthyReplicas());
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void testReadsFollowingACommittedWriteUsePrimary() throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void testCommittedWriteOnlyMovesItsWritersReadsToPrimary() throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        writer = "bob";
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        writer = null;
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    private Connection connection() {
+        try {
+            return routingDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
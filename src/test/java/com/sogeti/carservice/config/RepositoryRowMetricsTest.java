@@ -0,0 +1,60 @@
+package com.sogeti.carservice.config;
+
+import com.sogeti.carservice.repository.CarRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RepositoryRowMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CarRepository carRepository;
+    private CarRepository instrumented;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = mock(CarRepository.class);
+        ProxyFactory proxyFactory = new ProxyFactory(carRepository);
+        proxyFactory.addInterface(CarRepository.class);
+        proxyFactory.addAdvice(new RepositoryRowMetrics.RowCountInterceptor("CarRepository", meterRegistry));
+        instrumented = (CarRepository) proxyFactory.getProxy();
+    }
+
+    @Test
+    void testRecordsReturnedRows() {
+        when(carRepository.findIdsByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+        when(carRepository.findById(4L)).thenReturn(Optional.empty());
+
+        instrumented.findIdsByIdIn(List.of(1L, 2L, 3L));
+        instrumented.findById(4L);
+
+        assertEquals(2, summary("findIdsByIdIn").totalAmount());
+        assertEquals(0, summary("findById").totalAmount());
+        assertEquals(1, summary("findById").count());
+    }
+
+    @Test
+    void testRecordsChangedRowsOfModifyingQueries() {
+        when(carRepository.deleteByIdAndRevision(1L, 2L)).thenReturn(1);
+        when(carRepository.findRevisionById(1L)).thenReturn(7L);
+
+        instrumented.deleteByIdAndRevision(1L, 2L);
+        instrumented.findRevisionById(1L);
+
+        assertEquals(1, summary("deleteByIdAndRevision").totalAmount());
+        assertNull(meterRegistry.find("car.repository.rows").tag("method", "findRevisionById").summary());
+    }
+
+    private DistributionSummary summary(String method) {
+        return meterRegistry.get("car.repository.rows").tag("repository", "CarRepository").tag("method", method)
+                .summary();
+    }
+}
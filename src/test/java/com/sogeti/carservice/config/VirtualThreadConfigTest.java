@@ -0,0 +1,63 @@
+package com.sogeti.carservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    void testExecutorFailsFastBeforeJava21() {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                VirtualThreadConfig::newVirtualThreadPerTaskExecutor);
+
+        assertTrue(exception.getMessage().contains("requires Java 21"));
+    }
+
+    @Test
+    void testExecutorRunsTasksOnVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+
+        Future<Boolean> isVirtual = executor.submit(() -> (Boolean) Thread.class.getMethod("isVirtual")
+                .invoke(Thread.currentThread()));
+
+        assertTrue(isVirtual.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void testCacheManagerServesTheConfiguredCachesAsync() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setCacheNames(List.of(CacheConfig.CARS_CACHE));
+        cacheProperties.getCaffeine().setSpec("maximumSize=100,expireAfterWrite=10m,recordStats");
+
+        SimpleCacheManager cacheManager = (SimpleCacheManager) new VirtualThreadConfig()
+                .cacheManager(cacheProperties, new SimpleMeterRegistry());
+        cacheManager.afterPropertiesSet();
+
+        assertInstanceOf(AsyncCaffeineCache.class, cacheManager.getCache(CacheConfig.CARS_CACHE));
+    }
+
+    @Test
+    void testPinningMonitorLifecycle() {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(20), new SimpleMeterRegistry());
+
+        monitor.start();
+        assertTrue(monitor.isRunning());
+        monitor.stop();
+
+        assertFalse(monitor.isRunning());
+    }
+}
@@ -1,24 +1,54 @@
 package com.sogeti.carservice.controller;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarChangePageDTO;
 import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.dto.CarSearchCriteria;
+import com.sogeti.carservice.dto.CarSearchResultDTO;
+import com.sogeti.carservice.exception.PreconditionFailedException;
+import com.sogeti.carservice.service.CarCatalogueSnapshot;
+import com.sogeti.carservice.service.CarChangeLog;
+import com.sogeti.carservice.service.CarChangedEvent;
 import com.sogeti.carservice.service.CarService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.web.util.UriBuilder;
 import org.springframework.web.util.UriBuilderFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -30,9 +60,27 @@ class CarControllerTest {
     @MockBean
     private CarService carService;
 
+    @Autowired
+    private CarCatalogueSnapshot catalogueSnapshot;
+
+    @Autowired
+    private CarChangeLog carChangeLog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @LocalServerPort
     private int port;
 
+    @BeforeEach
+    void setUp() {
+        // The snapshot outlives a single test, every test starts from its own mocked catalogue
+        catalogueSnapshot.invalidate();
+    }
+
     @Test
     void testGetAllCarsSuccess() {
         when(carService.isValidToken("validToken")).thenReturn(true);
@@ -53,6 +101,110 @@ class CarControllerTest {
         verify(carService, times(1)).getAllCars();
     }
 
+    @Test
+    void testGetAllCarsNotModified() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        when(carService.getAllCars()).thenReturn(List.of(
+                CarDTO.builder().id(1L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                        .co2Emission(100).grossPrice(20000).nettPrice(19000).revision(0L).build()));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        String eTag = restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), List.class)
+                .getHeaders().getETag();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<List> response = restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), List.class);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+
+        // Both requests were answered from the snapshot built for the first one
+        verify(carService, times(1)).getAllCars();
+        verify(carService, never()).getCatalogueVersion();
+    }
+
+    @Test
+    void testGetAllCarsGzipped() throws IOException, InterruptedException {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        CarDTO car = CarDTO.builder().id(1L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).revision(0L).build();
+        when(carService.getAllCars()).thenReturn(Collections.nCopies(50, car));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cars"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer validToken")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<byte[]> plain = client.send(request.copy().build(), HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> gzipped = client.send(request.header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, gzipped.statusCode());
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertFalse(plain.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isPresent());
+        assertTrue(gzipped.body().length < plain.body().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertArrayEquals(plain.body(), gzip.readAllBytes());
+        }
+        assertEquals(plain.headers().firstValue(HttpHeaders.ETAG).orElseThrow().replace("\"", "") + "-gzip",
+                gzipped.headers().firstValue(HttpHeaders.ETAG).orElseThrow().replace("\"", ""));
+        verify(carService, times(1)).getAllCars();
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(CarController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CarController.acceptsGzip("*;q=0.5"));
+        assertTrue(CarController.acceptsGzip("*;q=0, gzip"));
+        assertFalse(CarController.acceptsGzip("gzip;q=0, *"));
+        assertFalse(CarController.acceptsGzip("identity"));
+        assertFalse(CarController.acceptsGzip(null));
+    }
+
+    @Test
+    void testGetAllCarsAsColumns() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        when(carService.getAllCars()).thenReturn(List.of(
+                CarDTO.builder().id(1L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                        .co2Emission(100).grossPrice(20000).nettPrice(19000).revision(0L).build()));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        headers.setAccept(List.of(MediaType.parseMediaType("application/vnd.car-columns+json")));
+        ResponseEntity<String> response = restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/vnd.car-columns+json", response.getHeaders().getContentType().toString());
+        assertEquals("{\"id\":[1],\"make\":[\"Toyota\"],\"model\":[\"Camry\"],\"version\":[\"2022\"],"
+                + "\"numberOfDoors\":[4],\"co2Emission\":[100.0],\"grossPrice\":[20000.0],\"nettPrice\":[19000.0],"
+                + "\"revision\":[0]}", response.getBody());
+    }
+
+    @Test
+    void testColumnsAndCborHaveTheirOwnETags() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        when(carService.getCatalogueVersion()).thenReturn("1-1-1-0");
+        when(carService.getAllCars()).thenReturn(List.of(
+                CarDTO.builder().id(1L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                        .co2Emission(100).grossPrice(20000).nettPrice(19000).revision(0L).build()));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        headers.setAccept(List.of(MediaType.parseMediaType("application/vnd.car-columns+json")));
+        String columnsETag = restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                .getHeaders().getETag();
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        headers.setIfNoneMatch(columnsETag);
+        ResponseEntity<byte[]> cbor = restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        // The columnar tag does not validate the CBOR bytes
+        assertEquals(HttpStatus.OK, cbor.getStatusCode());
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertNotEquals(columnsETag, cbor.getHeaders().getETag());
+
+        headers.setIfNoneMatch(cbor.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED,
+                restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), byte[].class).getStatusCode());
+    }
+
     @Test
     void testGetAllCarsUnauthorized() {
         when(carService.isValidToken("invalidToken")).thenReturn(false);
@@ -67,6 +219,67 @@ class CarControllerTest {
         verify(carService, never()).getAllCars();
     }
 
+    @Test
+    void testExportCarsAsNdjson() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<CarDTO> consumer = invocation.getArgument(0);
+            consumer.accept(CarDTO.builder().id(1L).make("Toyota").build());
+            consumer.accept(CarDTO.builder().id(2L).make("Ford").build());
+            return null;
+        }).when(carService).exportCars(any());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> response = restTemplate.exchange("/api/cars", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals("""
+                {"id":1,"make":"Toyota","model":null,"version":null,"numberOfDoors":0,"co2Emission":0.0,"grossPrice":0.0,"nettPrice":0.0,"revision":null}
+                {"id":2,"make":"Ford","model":null,"version":null,"numberOfDoors":0,"co2Emission":0.0,"grossPrice":0.0,"nettPrice":0.0,"revision":null}
+                """, response.getBody());
+    }
+
+    @Test
+    void testGetCarsPageSuccess() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        when(carService.getCarsAfter(1L, 1)).thenReturn(CarPageDTO.builder()
+                .cars(List.of(CarDTO.builder().id(2L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                        .co2Emission(100).grossPrice(20000).nettPrice(19000).build()))
+                .nextCursor(2L).build());
+
+        addHeaderInterceptorsForBearer("validToken");
+        ResponseEntity<CarPageDTO> response = restTemplate.getForEntity("/api/cars?limit=1&after=1", CarPageDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2L, response.getBody().getNextCursor());
+
+        verify(carService, times(1)).getCarsAfter(1L, 1);
+        verify(carService, never()).getAllCars();
+    }
+
+    @Test
+    void testSearchCarsSuccess() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        CarSearchCriteria criteria = CarSearchCriteria.builder().make("Toyota").minGrossPrice(15000.0).build();
+        PageRequest pageRequest = PageRequest.of(1, 10, Sort.by(Sort.Direction.ASC, "grossPrice"));
+        when(carService.searchCars(criteria, pageRequest)).thenReturn(CarSearchResultDTO.builder()
+                .cars(List.of(CarDTO.builder().id(2L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                        .co2Emission(100).grossPrice(20000).nettPrice(19000).build()))
+                .page(1).size(10).totalElements(11).totalPages(2).build());
+
+        addHeaderInterceptorsForBearer("validToken");
+        ResponseEntity<CarSearchResultDTO> response = restTemplate.getForEntity(
+                "/api/cars/search?make=Toyota&minGrossPrice=15000&page=1&size=10&sort=grossPrice,asc", CarSearchResultDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(11, response.getBody().getTotalElements());
+
+        verify(carService, times(1)).searchCars(criteria, pageRequest);
+    }
+
     @Test
     void testCreateCarSuccess() {
         when(carService.isValidToken("validToken")).thenReturn(true);
@@ -89,6 +302,32 @@ class CarControllerTest {
         verify(carService, times(1)).createCar(any());
     }
 
+    @Test
+    void testCreateCarAsCbor() throws IOException {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        when(carService.createCar(any(CarDTO.class))).thenAnswer(invocation -> {
+            CarDTO carDTO = invocation.getArgument(0);
+            carDTO.setId(1L);
+            return carDTO;
+        });
+        CBORMapper cborMapper = new CBORMapper();
+        CarDTO newCar = CarDTO.builder().make("Ford").model("Mustang").version("2022").numberOfDoors(5)
+                .co2Emission(100).grossPrice(20000.5).nettPrice(19000).build();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        headers.setContentType(MediaType.APPLICATION_CBOR);
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        ResponseEntity<byte[]> response = restTemplate.exchange("/api/cars", HttpMethod.POST,
+                new HttpEntity<>(cborMapper.writeValueAsBytes(newCar), headers), byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+        CarDTO created = cborMapper.readValue(response.getBody(), CarDTO.class);
+        assertEquals(1L, created.getId());
+        assertEquals(20000.5, created.getGrossPrice());
+    }
+
     @Test
     void testCreateCarUnauthorized() {
         when(carService.isValidToken("invalidToken")).thenReturn(false);
@@ -168,6 +407,42 @@ class CarControllerTest {
         verify(carService, times(1)).updateCar(eq(2L), any(CarDTO.class));
     }
 
+    @Test
+    void testUpdateCarStaleIfMatch() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        when(carService.updateCar(eq(2L), any(CarDTO.class)))
+                .thenThrow(new PreconditionFailedException("Car 2 is no longer at revision 1"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setIfMatch("\"1\"");
+        HttpEntity<CarDTO> requestEntity = new HttpEntity<>(CarDTO.builder().make("Ford").build(), headers);
+
+        ResponseEntity<String> response = restTemplate.exchange("/api/cars/2", HttpMethod.PUT, requestEntity, String.class);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+
+        verify(carService, times(1)).updateCar(eq(2L), argThat(carDTO -> carDTO.getRevision() == 1L));
+    }
+
+    @Test
+    void testDeleteMissingCarWithIfMatchAny() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        doThrow(new PreconditionFailedException("Car 4 does not exist"))
+                .when(carService).deleteCar(4L, CarDTO.ANY_REVISION);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("validToken");
+        headers.setIfMatch("*");
+
+        ResponseEntity<String> response = restTemplate.exchange("/api/cars/4", HttpMethod.DELETE, new HttpEntity<>(headers), String.class);
+
+        // If-Match: * only holds when the car exists, RFC 9110 section 13.1.1
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        verify(carService, never()).deleteCar(4L);
+    }
+
     @Test
     void testUpdateCarUnauthorized() {
         when(carService.isValidToken("invalidToken")).thenReturn(false);
@@ -228,6 +503,65 @@ class CarControllerTest {
         verify(carService, never()).deleteCar(anyLong());
     }
 
+    @Test
+    void testGetCarChangesSinceSequence() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        long since = carChangeLog.lastSequence();
+        eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(9001L, 9002L)));
+
+        addHeaderInterceptorsForBearer("validToken");
+        ResponseEntity<CarChangePageDTO> response = restTemplate.getForEntity(
+                "/api/cars/changes?since=" + since, CarChangePageDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<CarChangeDTO> changes = response.getBody().getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(since + 1, changes.get(0).getSequence());
+        assertEquals(9001L, changes.get(0).getId());
+        assertEquals(CarChangeDTO.Type.DELETED, changes.get(0).getType());
+        assertNull(changes.get(0).getCar());
+        assertEquals(since + 2, response.getBody().getLastSequence());
+    }
+
+    @Test
+    void testGetExpiredCarChanges() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        long since = carChangeLog.lastSequence();
+        eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(9003L)));
+        jdbcTemplate.update("delete from car_change where sequence <= ?", since + 1);
+
+        addHeaderInterceptorsForBearer("validToken");
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/cars/changes?since=" + since, String.class);
+
+        assertEquals(HttpStatus.GONE, response.getStatusCode());
+    }
+
+    @Test
+    void testStreamCarChanges() {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        long since = carChangeLog.lastSequence();
+        eventPublisher.publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(9004L)));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cars/changes"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer validToken")
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .header("Last-Event-ID", Long.toString(since))
+                .build();
+        List<String> event = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            // The change committed before subscribing is sent while catching up
+            try (Stream<String> lines = response.body()) {
+                return lines.filter(line -> line.startsWith("id:") || line.startsWith("data:")).limit(2).toList();
+            }
+        });
+
+        assertEquals("id:" + (since + 1), event.get(0));
+        assertTrue(event.get(1).contains("\"id\":9004"));
+        assertTrue(event.get(1).contains("\"type\":\"DELETED\""));
+    }
+
     private void addHeaderInterceptorsForBearer(String token) {
         restTemplate.getRestTemplate().setInterceptors(
                 Collections.singletonList((request, body, execution) -> {
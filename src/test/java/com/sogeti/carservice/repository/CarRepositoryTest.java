@@ -0,0 +1,27 @@
+package com.sogeti.carservice.repository;
+
+import com.sogeti.carservice.model.Car;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+class CarRepositoryTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Test
+    void testDeleteByIdAndRevision() {
+        Car car = carRepository.save(Car.builder().make("Ford").model("Focus").version("2022").numberOfDoors(5)
+                .co2Emission(110).grossPrice(25000).nettPrice(24000).build());
+
+        assertEquals(0, carRepository.deleteByIdAndRevision(car.getId(), car.getRevision() + 1));
+        // Without a revision the car is deleted whatever revision it is at
+        assertEquals(1, carRepository.deleteByIdAndRevision(car.getId(), null));
+        assertFalse(carRepository.existsById(car.getId()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.sogeti.carservice.repository;
+
+import com.sogeti.carservice.model.Car;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveCarRepositoryTest {
+
+    @Test
+    void testCarMapping() {
+        RelationalPersistentEntity<?> entity = new R2dbcMappingContext().getRequiredPersistentEntity(Car.class);
+
+        assertEquals("id", entity.getRequiredIdProperty().getName());
+        // The revision check is in the repository's update and delete queries, Spring Data JPA rejects a second @Version
+        assertNull(entity.getVersionProperty());
+        assertEquals("co2emission", entity.getRequiredPersistentProperty("co2Emission").getColumnName().getReference());
+        assertEquals("number_of_doors", entity.getRequiredPersistentProperty("numberOfDoors").getColumnName().getReference());
+    }
+
+    @Test
+    void testFindByIdReachesTheDatabase() {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        IllegalStateException unavailable = new IllegalStateException("no database in this test");
+        when(connectionFactory.getMetadata()).thenReturn(() -> "PostgreSQL");
+        when(connectionFactory.create()).thenAnswer(invocation -> Mono.error(unavailable));
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(DatabaseClient.create(connectionFactory), PostgresDialect.INSTANCE);
+        ReactiveCarRepository repository = new R2dbcRepositoryFactory(template).getRepository(ReactiveCarRepository.class);
+
+        // Without a mapped id the query cannot be built and fails before asking for a connection
+        StepVerifier.create(repository.findById(1L))
+                .expectErrorMatches(error -> error.getCause() == unavailable || error == unavailable)
+                .verify();
+        StepVerifier.create(repository.existsById(1L))
+                .expectErrorMatches(error -> error.getCause() == unavailable || error == unavailable)
+                .verify();
+    }
+}
@@ -0,0 +1,132 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.config.AdmissionControlProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlProperties properties;
+    private AtomicInteger pendingConnections;
+    private Bulkhead iamBulkhead;
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new AdmissionControlProperties();
+        properties.setMaxConcurrentRequests(1);
+        properties.setMaxPendingConnections(2);
+        properties.setRetryAfter(Duration.ofMillis(1500));
+        pendingConnections = new AtomicInteger();
+        iamBulkhead = Bulkhead.of("iam-service", BulkheadConfig.custom().maxConcurrentCalls(1).build());
+        filter = new AdmissionControlFilter(properties, pendingConnections::get, iamBulkhead, meterRegistry);
+    }
+
+    @Test
+    void testAdmitsWhileNotSaturated() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(0, filter.inFlight());
+    }
+
+    @Test
+    void testShedsRequestsBeyondConcurrencyLimit() throws Exception {
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        // The first request is still in progress when the second arrives
+        FilterChain slowChain = (request, response) -> {
+            nested[0] = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/cars/1"), nested[0], new MockFilterChain());
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars"), new MockHttpServletResponse(), slowChain);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), nested[0].getStatus());
+        assertEquals("2", nested[0].getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, filter.inFlight());
+        assertEquals(1, meterRegistry.get("car.admission.rejected").tag("reason", "concurrency").counter().count());
+    }
+
+    @Test
+    void testShedsWhileConnectionsAreQueued() throws Exception {
+        pendingConnections.set(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars"), response, chain);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertNull(chain.getRequest());
+        assertEquals(0, filter.inFlight());
+        assertEquals(1, meterRegistry.get("car.admission.rejected").tag("reason", "database").counter().count());
+    }
+
+    @Test
+    void testShedsWhileIamServiceCallsAreSaturated() throws Exception {
+        assertTrue(iamBulkhead.tryAcquirePermission());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars"), response, new MockFilterChain());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals(1, meterRegistry.get("car.admission.rejected").tag("reason", "iam").counter().count());
+    }
+
+    @Test
+    void testStreamedResponseCountsUntilComplete() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        assertEquals(1, filter.inFlight());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(0, filter.inFlight());
+    }
+
+    @Test
+    void testEventStreamIsReleasedWhenStarted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars/changes");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        // A long-lived subscription does not hold a slot meant for short requests
+        assertEquals(0, filter.inFlight());
+    }
+
+    @Test
+    void testOtherStreamsCountEvenWhenAcceptingAnEventStream() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE + ", " + MediaType.APPLICATION_NDJSON_VALUE);
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, filter.inFlight());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(0, filter.inFlight());
+    }
+}
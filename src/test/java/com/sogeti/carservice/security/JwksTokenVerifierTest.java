@@ -0,0 +1,98 @@
+package com.sogeti.carservice.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sogeti.carservice.config.TokenValidationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JwksTokenVerifierTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RSAKey signingKey;
+    private JwksTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("iam-key-1").generate();
+        // Stand-in for the JWKS document published by iam-service
+        Path jwks = tempDir.resolve("jwks.json");
+        Files.writeString(jwks, new JWKSet(signingKey.toPublicJWK()).toString());
+
+        TokenValidationProperties properties = new TokenValidationProperties();
+        properties.setMode(TokenValidationProperties.Mode.LOCAL);
+        properties.setJwksLocation(jwks.toUri().toString());
+        verifier = new JwksTokenVerifier(properties, new DefaultResourceLoader());
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifier.destroy();
+    }
+
+    @Test
+    void testVerifyValidToken() throws JOSEException {
+        String token = sign(signingKey, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertEquals(Optional.of(true), verifier.verify(token));
+    }
+
+    @Test
+    void testVerifyExpiredToken() throws JOSEException {
+        String token = sign(signingKey, Instant.now().minus(1, ChronoUnit.HOURS));
+
+        assertEquals(Optional.of(false), verifier.verify(token));
+    }
+
+    @Test
+    void testVerifyForgedToken() throws JOSEException {
+        RSAKey forgedKey = new RSAKeyGenerator(2048).keyID("iam-key-1").generate();
+        String token = sign(forgedKey, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertEquals(Optional.of(false), verifier.verify(token));
+    }
+
+    @Test
+    void testVerifyUnknownKeyFallsBack() throws JOSEException {
+        RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("iam-key-2").generate();
+        String token = sign(rotatedKey, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertEquals(Optional.empty(), verifier.verify(token));
+    }
+
+    @Test
+    void testVerifyMalformedToken() {
+        assertEquals(Optional.of(false), verifier.verify("not-a-jwt"));
+    }
+
+    private static String sign(RSAKey key, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("john")
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
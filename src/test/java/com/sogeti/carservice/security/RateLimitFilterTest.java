@@ -0,0 +1,133 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RateLimitProperties();
+        properties.setCapacity(10);
+        properties.setRefillPerSecond(1);
+        properties.setListCost(5);
+        properties.setSearchCost(2);
+        properties.setBatchCost(5);
+        properties.setDefaultCost(1);
+    }
+
+    @Test
+    void testBucketAdmitsBurstThenRefills() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 1, 100, null);
+        long now = 0;
+
+        assertEquals(0, limiter.tryAcquire("alice", 5, now));
+        assertEquals(0, limiter.tryAcquire("alice", 5, now));
+        assertEquals(SECOND, limiter.tryAcquire("alice", 1, now));
+        // Other clients have their own bucket
+        assertEquals(0, limiter.tryAcquire("bob", 10, now));
+
+        assertEquals(3 * SECOND, limiter.tryAcquire("alice", 3, now));
+        assertEquals(0, limiter.tryAcquire("alice", 3, now + 3 * SECOND));
+        // An idle client does not save up more than capacity
+        assertEquals(0, limiter.tryAcquire("bob", 10, now + 60 * SECOND));
+        assertTrue(limiter.tryAcquire("bob", 1, now + 60 * SECOND) > 0);
+    }
+
+    @Test
+    void testConcurrentRequestsNeverExceedCapacity() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(1000, 0.001, 100, null);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (int i = 0; i < 500; i++) {
+                        if (limiter.tryAcquire("alice", 1, 0) == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1000, admitted.get());
+    }
+
+    @Test
+    void testRejectsWith429AndRetryAfterPerPrincipal() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry);
+
+        assertEquals(HttpStatus.OK.value(), list(filter, "alice").getStatus());
+        assertEquals(HttpStatus.OK.value(), list(filter, "alice").getStatus());
+        MockHttpServletResponse rejected = list(filter, "alice");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+        assertTrue(Long.parseLong(rejected.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+        assertEquals(HttpStatus.OK.value(), list(filter, "bob").getStatus());
+        assertEquals(1, meterRegistry.get("car.admission.rejected").tag("reason", "rate-limited").counter().count());
+    }
+
+    @Test
+    void testCostDependsOnEndpoint() {
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry);
+
+        assertEquals(5, filter.costOf(new MockHttpServletRequest("GET", "/api/cars")));
+        MockHttpServletRequest page = new MockHttpServletRequest("GET", "/api/cars");
+        page.setParameter("limit", "50");
+        assertEquals(1, filter.costOf(page));
+        assertEquals(1, filter.costOf(new MockHttpServletRequest("GET", "/api/cars/42")));
+        assertEquals(1, filter.costOf(new MockHttpServletRequest("POST", "/api/cars")));
+        assertEquals(2, filter.costOf(new MockHttpServletRequest("GET", "/api/cars/search")));
+        assertEquals(2, filter.costOf(new MockHttpServletRequest("GET", "/api/cars/analytics/co2-by-make")));
+        assertEquals(5, filter.costOf(new MockHttpServletRequest("PUT", "/api/cars/batch")));
+    }
+
+    @Test
+    void testCostAboveCapacityIsRejectedAtStartup() {
+        properties.setListCost(11);
+        properties.setIdleTimeout(Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> new RateLimitFilter(properties, meterRegistry));
+    }
+
+    private static MockHttpServletResponse list(RateLimitFilter filter, String principal) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+        request.setAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE, new AuthenticatedPrincipal(principal));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,69 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.exception.TokenValidationException;
+import com.sogeti.carservice.service.ReactiveCarService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveTokenAuthenticationFilterTest {
+
+    private ReactiveCarService carService;
+    private ReactiveTokenAuthenticationFilter filter;
+    private AtomicBoolean chainCalled;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        carService = mock(ReactiveCarService.class);
+        filter = new ReactiveTokenAuthenticationFilter(carService, new SimpleMeterRegistry());
+        chainCalled = new AtomicBoolean();
+        chain = exchange -> {
+            chainCalled.set(true);
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void testValidTokenReachesHandler() {
+        when(carService.isValidToken("validToken")).thenReturn(Mono.just(true));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/cars/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer validToken"));
+
+        filter.filter(exchange, chain).block();
+
+        assertTrue(chainCalled.get());
+        assertNotNull(exchange.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE));
+    }
+
+    @Test
+    void testInvalidTokenIsRejectedBeforeHandler() {
+        when(carService.isValidToken("invalidToken")).thenReturn(Mono.error(new TokenValidationException("Token validation failed")));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/cars")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer invalidToken"));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertFalse(chainCalled.get());
+    }
+
+    @Test
+    void testOtherPathsAreNotAuthenticated() {
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/health")), chain).block();
+
+        assertTrue(chainCalled.get());
+        verifyNoInteractions(carService);
+    }
+}
@@ -0,0 +1,84 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.exception.TokenValidationException;
+import com.sogeti.carservice.service.CarService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenAuthenticationFilterTest {
+
+    private CarService carService;
+    private TokenAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        carService = mock(CarService.class);
+        filter = new TokenAuthenticationFilter(carService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testValidTokenReachesHandler() throws Exception {
+        when(carService.isValidToken("validToken")).thenReturn(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer validToken");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertNotNull(request.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE));
+    }
+
+    @Test
+    void testInvalidTokenIsRejectedBeforeHandler() throws Exception {
+        when(carService.isValidToken("invalidToken")).thenThrow(new TokenValidationException("Token validation failed"));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cars");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer invalidToken");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void testMissingTokenIsRejectedWithoutValidation() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars"), response, new MockFilterChain());
+
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+        verify(carService, never()).isValidToken(anyString());
+    }
+
+    @Test
+    void testOpaqueTokensWithTheSameHashCodeAreDifferentPrincipals() {
+        // "Aa" and "BB" share String.hashCode, they must not share a rate limit
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        AuthenticatedPrincipal first = TokenAuthenticationFilter.principalOf("Aa");
+
+        assertNotEquals(first, TokenAuthenticationFilter.principalOf("BB"));
+        assertEquals("token:" + TokenValidationCache.hash("Aa"), first.name());
+    }
+
+    @Test
+    void testExtractToken() {
+        assertEquals("abc", TokenAuthenticationFilter.extractToken("Bearer abc"));
+        assertEquals("abc", TokenAuthenticationFilter.extractToken("bearer  abc "));
+        assertNull(TokenAuthenticationFilter.extractToken("Basic abc"));
+        assertNull(TokenAuthenticationFilter.extractToken("Bearer "));
+        assertNull(TokenAuthenticationFilter.extractToken(null));
+    }
+}
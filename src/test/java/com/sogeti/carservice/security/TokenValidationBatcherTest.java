@@ -0,0 +1,97 @@
+package com.sogeti.carservice.security;
+
+import com.sogeti.carservice.client.IAMFeignClient;
+import com.sogeti.carservice.config.TokenBatchProperties;
+import com.sogeti.carservice.dto.TokenValidationBatchRequestDTO;
+import com.sogeti.carservice.dto.TokenValidationBatchResultDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenValidationBatcherTest {
+
+    private final StubIamFeignClient iamFeignClient = new StubIamFeignClient();
+    private TokenValidationBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.destroy();
+        }
+    }
+
+    @Test
+    void testConcurrentTokensShareOneBatch() {
+        batcher = batcher(10, Duration.ofMillis(200));
+
+        CompletableFuture<Boolean> first = batcher.submit("valid-1");
+        CompletableFuture<Boolean> duplicate = batcher.submit("valid-1");
+        CompletableFuture<Boolean> rejected = batcher.submit("invalid-2");
+
+        assertSame(first, duplicate);
+        assertTrue(first.join());
+        assertFalse(rejected.join());
+        assertEquals(List.of(List.of("valid-1", "invalid-2")), iamFeignClient.batches);
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutWaiting() {
+        batcher = batcher(2, Duration.ofSeconds(30));
+
+        CompletableFuture<Boolean> first = batcher.submit("valid-1");
+        CompletableFuture<Boolean> second = batcher.submit("valid-2");
+
+        assertTrue(first.join() && second.join());
+        assertEquals(1, iamFeignClient.batches.size());
+    }
+
+    @Test
+    void testFailedBatchFailsEveryCaller() {
+        batcher = batcher(10, Duration.ofMillis(1));
+        iamFeignClient.failure = new IllegalStateException("iam-service unavailable");
+
+        assertThrows(IllegalStateException.class, () -> batcher.validate("valid-1"));
+
+        iamFeignClient.failure = null;
+        assertTrue(batcher.validate("valid-1"));
+    }
+
+    private TokenValidationBatcher batcher(int maxBatchSize, Duration maxWait) {
+        TokenBatchProperties properties = new TokenBatchProperties();
+        properties.setEnabled(true);
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxWait(maxWait);
+        return new TokenValidationBatcher(properties, iamFeignClient, new SimpleMeterRegistry());
+    }
+
+    // Accepts the tokens starting with "valid" and records every batch it receives
+    private static class StubIamFeignClient implements IAMFeignClient {
+
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private volatile RuntimeException failure;
+
+        @Override
+        public ResponseEntity<String> validateToken(String authorizationHeader) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TokenValidationBatchResultDTO validateTokens(TokenValidationBatchRequestDTO request) {
+            if (failure != null) {
+                throw failure;
+            }
+            batches.add(List.copyOf(request.getTokens()));
+            return TokenValidationBatchResultDTO.builder()
+                    .valid(request.getTokens().stream().map(token -> token.startsWith("valid")).toList())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.sogeti.carservice.security;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sogeti.carservice.config.TokenCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenValidationCacheTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final FakeTime time = new FakeTime();
+    private final AtomicInteger validations = new AtomicInteger();
+    private TokenValidationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        TokenCacheProperties properties = new TokenCacheProperties();
+        properties.setTtl(Duration.ofMinutes(5));
+        properties.setNegativeTtl(Duration.ofSeconds(10));
+        cache = new TokenValidationCache(properties, new SimpleMeterRegistry(), time, time);
+    }
+
+    @Test
+    void testValidTokenIsCachedUntilItsExpiry() {
+        String token = jwt(START.plusSeconds(60));
+
+        assertTrue(validate(token, true));
+        time.advance(Duration.ofSeconds(59));
+        assertTrue(validate(token, true));
+        assertEquals(1, validations.get());
+
+        // Shorter than the 5 minute ttl, the exp claim ends the entry
+        time.advance(Duration.ofSeconds(2));
+        assertFalse(validate(token, false));
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void testValidTokenWithoutExpiryIsCachedForTheTtl() {
+        assertTrue(validate("opaque", true));
+        time.advance(Duration.ofMinutes(4));
+        assertTrue(validate("opaque", true));
+        assertEquals(1, validations.get());
+
+        time.advance(Duration.ofMinutes(2));
+        assertTrue(validate("opaque", true));
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void testInvalidTokenIsCachedBriefly() {
+        // The token is valid for an hour, a rejection is still only kept for the negative ttl
+        String token = jwt(START.plusSeconds(3600));
+
+        assertFalse(validate(token, false));
+        time.advance(Duration.ofSeconds(9));
+        assertFalse(validate(token, true));
+        assertEquals(1, validations.get());
+
+        time.advance(Duration.ofSeconds(2));
+        assertTrue(validate(token, true));
+        assertEquals(2, validations.get());
+    }
+
+    private boolean validate(String token, boolean valid) {
+        return cache.validate(token, t -> {
+            validations.incrementAndGet();
+            return valid;
+        });
+    }
+
+    private static String jwt(Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"sub\":\"user\",\"exp\":" + expiresAt.getEpochSecond() + "}")
+                .getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".signature";
+    }
+
+    // Wall clock for the exp claim and Caffeine ticker in one, so both move together
+    private static class FakeTime extends Clock implements Ticker {
+
+        private long nanos;
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        @Override
+        public Instant instant() {
+            return START.plusNanos(nanos);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
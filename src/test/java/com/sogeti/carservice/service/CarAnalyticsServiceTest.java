@@ -0,0 +1,125 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.PrimaryReads;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.MakeEmissionDTO;
+import com.sogeti.carservice.dto.PriceBucketDTO;
+import com.sogeti.carservice.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CarAnalyticsServiceTest {
+
+    private CarService carService;
+    private CarAnalyticsServiceImpl carAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        carService = mock(CarService.class);
+        doAnswer(invocation -> {
+            Consumer<CarDTO> consumer = invocation.getArgument(0);
+            consumer.accept(car(1L, "Toyota", 100, 18000));
+            consumer.accept(car(2L, "Ford", 150, 21000));
+            consumer.accept(car(3L, "Toyota", 120, 24999));
+            return null;
+        }).when(carService).exportCars(any());
+        carAnalyticsService = new CarAnalyticsServiceImpl(carService);
+    }
+
+    @Test
+    void testCo2EmissionByMake() {
+        List<MakeEmissionDTO> result = carAnalyticsService.getCo2EmissionByMake();
+
+        assertEquals(List.of(new MakeEmissionDTO("Ford", 1, 150), new MakeEmissionDTO("Toyota", 2, 110)), result);
+    }
+
+    @Test
+    void testPriceHistogram() {
+        List<PriceBucketDTO> result = carAnalyticsService.getPriceHistogram("grossPrice", 5000);
+
+        assertEquals(List.of(new PriceBucketDTO(15000, 20000, 1), new PriceBucketDTO(20000, 25000, 2)), result);
+    }
+
+    @Test
+    void testPriceHistogramRejectsOtherFields() {
+        assertThrows(InvalidRequestException.class, () -> carAnalyticsService.getPriceHistogram("co2Emission", 5000));
+        assertThrows(InvalidRequestException.class, () -> carAnalyticsService.getPriceHistogram("grossPrice", 0));
+        assertThrows(InvalidRequestException.class, () -> carAnalyticsService.getPriceHistogram("grossPrice", 0.01));
+        assertThrows(InvalidRequestException.class, () -> carAnalyticsService.getPriceHistogram("grossPrice", Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void testPriceHistogramRejectsBucketNumbersBeyondALong() {
+        // 18000 / 1e-300 is far beyond Long.MAX_VALUE, cast to long first it would look like a single bucket
+        assertThrows(InvalidRequestException.class, () -> carAnalyticsService.getPriceHistogram("grossPrice", 1e-300));
+        assertThrows(InvalidRequestException.class, () -> carAnalyticsService.getPriceHistogram("grossPrice", Double.MIN_VALUE));
+    }
+
+    @Test
+    void testChangedCarsAreAppliedWithoutReloading() {
+        carAnalyticsService.getCo2EmissionByMake();
+        carAnalyticsService.getPriceHistogram("nettPrice", 1000);
+        verify(carService, times(1)).exportCars(any());
+
+        when(carService.getCarsByIds(any())).thenReturn(List.of(car(2L, "Toyota", 130, 21000), car(4L, "Ford", 90, 19000)));
+        carAnalyticsService.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(2L)));
+        carAnalyticsService.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.CREATED, List.of(4L)));
+        carAnalyticsService.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(3L)));
+        List<MakeEmissionDTO> result = carAnalyticsService.getCo2EmissionByMake();
+
+        assertEquals(List.of(new MakeEmissionDTO("Ford", 1, 90), new MakeEmissionDTO("Toyota", 2, 115)), result);
+        verify(carService).getCarsByIds(Set.of(2L, 3L, 4L));
+        verify(carService, times(1)).exportCars(any());
+
+        carAnalyticsService.getPriceHistogram("grossPrice", 5000);
+        verify(carService, times(1)).getCarsByIds(any());
+    }
+
+    @Test
+    void testColumnsAreReadFromThePrimary() {
+        List<Boolean> primaryReads = new ArrayList<>();
+        doAnswer(invocation -> {
+            primaryReads.add(PrimaryReads.requested());
+            return null;
+        }).when(carService).exportCars(any());
+        when(carService.getCarsByIds(any())).thenAnswer(invocation -> {
+            primaryReads.add(PrimaryReads.requested());
+            return List.of();
+        });
+
+        carAnalyticsService.getCo2EmissionByMake();
+        carAnalyticsService.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(3L)));
+        carAnalyticsService.getCo2EmissionByMake();
+
+        assertEquals(List.of(true, true), primaryReads);
+        assertFalse(PrimaryReads.requested());
+    }
+
+    @Test
+    void testColumnsAreReloadedWhenTheChangedCarsAreUnknown() {
+        carAnalyticsService.getCo2EmissionByMake();
+
+        carAnalyticsService.onCarChanged(new CarChangedEvent(null, null, true));
+        carAnalyticsService.getCo2EmissionByMake();
+
+        verify(carService, times(2)).exportCars(any());
+        verify(carService, never()).getCarsByIds(any());
+    }
+
+    private static CarDTO car(Long id, String make, double co2Emission, double grossPrice) {
+        return CarDTO.builder().id(id).make(make).model("Model").version("2022").numberOfDoors(4)
+                .co2Emission(co2Emission).grossPrice(grossPrice).nettPrice(grossPrice).build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.BatchProperties;
+import com.sogeti.carservice.config.CacheConfig;
+import com.sogeti.carservice.dto.BatchItemResultDTO;
+import com.sogeti.carservice.dto.BatchItemResultDTO.Status;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.model.Car;
+import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.utility.CarMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CarBatchServiceTest {
+
+    private CarRepository carRepository;
+    private PlatformTransactionManager transactionManager;
+    private Cache carsCache;
+    private ApplicationEventPublisher eventPublisher;
+    private CarBatchServiceImpl carBatchService;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = mock(CarRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        carsCache = mock(Cache.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(CacheConfig.CARS_CACHE)).thenReturn(carsCache);
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setChunkSize(2);
+        carBatchService = new CarBatchServiceImpl(carRepository, Mappers.getMapper(CarMapper.class),
+                transactionManager, cacheManager, eventPublisher, batchProperties);
+    }
+
+    @Test
+    void testCreateCarsInChunks() {
+        AtomicLong sequence = new AtomicLong(100);
+        when(carRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Car> cars = invocation.getArgument(0);
+            cars.forEach(car -> car.setId(sequence.incrementAndGet()));
+            return cars;
+        });
+        List<CarDTO> carDTOs = List.of(car(null, "Toyota"), car(7L, "Ford"), car(null, "Suzuki"));
+
+        List<BatchItemResultDTO> results = carBatchService.createCars(carDTOs.iterator());
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals(103L, results.get(2).getId());
+        assertEquals(Status.CREATED, results.get(1).getStatus());
+        verify(carRepository, times(2)).saveAll(anyList());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testUpdateCarsReportsMissingCars() {
+        Car existing = Car.builder().id(1L).make("Toyota").model("Camry").build();
+        when(carRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(existing));
+
+        List<BatchItemResultDTO> results = carBatchService.updateCars(List.of(car(1L, "Ford"), car(2L, "Ford")).iterator());
+
+        assertEquals(Status.UPDATED, results.get(0).getStatus());
+        assertEquals(Status.NOT_FOUND, results.get(1).getStatus());
+        assertEquals("Ford", existing.getMake());
+        verify(carsCache).evict(1L);
+        verify(carsCache, never()).evict(2L);
+        verify(eventPublisher).publishEvent(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(1L)));
+    }
+
+    @Test
+    void testDeleteCars() {
+        when(carRepository.findIdsByIdIn(List.of(1L, 2L))).thenReturn(List.of(2L));
+
+        List<BatchItemResultDTO> results = carBatchService.deleteCars(List.of(1L, 2L).iterator());
+
+        assertEquals(Status.NOT_FOUND, results.get(0).getStatus());
+        assertEquals(Status.DELETED, results.get(1).getStatus());
+        verify(carsCache).evict(2L);
+    }
+
+    @Test
+    void testFailedChunkIsRolledBackOnly() {
+        when(carRepository.findIdsByIdIn(List.of(1L, 2L))).thenThrow(new DataIntegrityViolationException("broken"));
+        when(carRepository.findIdsByIdIn(List.of(3L))).thenReturn(List.of(3L));
+
+        List<BatchItemResultDTO> results = carBatchService.deleteCars(List.of(1L, 2L, 3L).iterator());
+
+        assertEquals(Status.FAILED, results.get(0).getStatus());
+        assertEquals(Status.FAILED, results.get(1).getStatus());
+        assertEquals(Status.DELETED, results.get(2).getStatus());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+        verify(eventPublisher).publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(3L)));
+    }
+
+    @Test
+    void testChunkFailingOutsideTheDatabaseIsReportedAsFailed() {
+        when(carRepository.findIdsByIdIn(List.of(1L, 2L))).thenThrow(new IllegalStateException("unexpected"));
+        when(carRepository.findIdsByIdIn(List.of(3L))).thenReturn(List.of(3L));
+
+        List<BatchItemResultDTO> results = carBatchService.deleteCars(List.of(1L, 2L, 3L).iterator());
+
+        assertEquals(List.of(Status.FAILED, Status.FAILED, Status.DELETED),
+                results.stream().map(BatchItemResultDTO::getStatus).toList());
+        assertEquals("unexpected", results.get(0).getMessage());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    private static CarDTO car(Long id, String make) {
+        return CarDTO.builder().id(id).make(make).model("Model").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.PrimaryReads;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import com.sogeti.carservice.dto.CarDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CarCatalogueSnapshotTest {
+
+    private CarService carService;
+    private CarCatalogueSnapshot catalogueSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        carService = mock(CarService.class);
+        catalogueSnapshot = new CarCatalogueSnapshot(carService);
+    }
+
+    @Test
+    void testSnapshotIsBuiltOnceUntilCarsChange() throws IOException {
+        when(carService.getAllCars()).thenReturn(cars(20)).thenReturn(cars(21));
+
+        CarCatalogueSnapshot.Snapshot first = catalogueSnapshot.get();
+        assertSame(first, catalogueSnapshot.get());
+        verify(carService, times(1)).getAllCars();
+
+        assertTrue(new String(first.json(), StandardCharsets.UTF_8).startsWith("[{\"id\":1,\"make\":\"Toyota\""));
+        assertTrue(first.gzip().length < first.json().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), gzip.readAllBytes());
+        }
+
+        catalogueSnapshot.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(21L)));
+        CarCatalogueSnapshot.Snapshot second = catalogueSnapshot.get();
+
+        assertNotEquals(first.hash(), second.hash());
+        verify(carService, times(2)).getAllCars();
+    }
+
+    @Test
+    void testSnapshotBuiltDuringAChangeIsNotKept() {
+        when(carService.getAllCars()).thenAnswer(invocation -> {
+            // The change commits while the rows are being read
+            catalogueSnapshot.invalidate();
+            return cars(1);
+        }).thenReturn(cars(1));
+
+        catalogueSnapshot.get();
+        catalogueSnapshot.get();
+        catalogueSnapshot.get();
+
+        verify(carService, times(2)).getAllCars();
+    }
+
+    @Test
+    void testSnapshotIsBuiltFromThePrimary() {
+        when(carService.getAllCars()).thenAnswer(invocation -> {
+            assertTrue(PrimaryReads.requested());
+            return cars(1);
+        });
+
+        catalogueSnapshot.get();
+
+        verify(carService).getAllCars();
+        assertFalse(PrimaryReads.requested());
+    }
+
+    @Test
+    void testEmptyCatalogueIsNotCompressed() {
+        when(carService.getAllCars()).thenReturn(Collections.emptyList());
+
+        CarCatalogueSnapshot.Snapshot snapshot = catalogueSnapshot.get();
+
+        assertEquals("[]", new String(snapshot.json(), StandardCharsets.UTF_8));
+        assertNull(snapshot.gzip());
+    }
+
+    private static List<CarDTO> cars(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> CarDTO.builder().id(id).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                        .co2Emission(100).grossPrice(20000).nettPrice(19000).revision(0L).build())
+                .toList();
+    }
+}
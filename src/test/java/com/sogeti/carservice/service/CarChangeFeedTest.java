@@ -0,0 +1,156 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.ChangeFeedProperties;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CarChangeFeedTest {
+
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final Deque<SseEmitter> emitters = new ArrayDeque<>();
+    private ChangeFeedProperties properties;
+    private CarChangeLog changeLog;
+    private CarChangeFeed feed;
+    private long lastSequence;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChangeFeedProperties();
+        properties.setPageSize(2);
+        properties.setPollInterval(Duration.ofMillis(100));
+        properties.setSendTimeout(Duration.ofMillis(300));
+        changeLog = mock(CarChangeLog.class);
+        when(changeLog.lastSequence()).thenAnswer(invocation -> lastSequence);
+        when(changeLog.findChangesAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return LongStream.rangeClosed(after + 1, lastSequence).limit(limit).mapToObj(CarChangeFeedTest::change).toList();
+        });
+        feed = new CarChangeFeed(changeLog, properties, new SimpleMeterRegistry()) {
+            @Override
+            SseEmitter createEmitter() {
+                return emitters.removeFirst();
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.countDown();
+        feed.destroy();
+    }
+
+    @Test
+    void testStalledSubscriberDoesNotHoldUpOthers() throws Exception {
+        emitters.add(new StalledEmitter());
+        RecordingEmitter recording = new RecordingEmitter(5);
+        emitters.add(recording);
+        feed.subscribe(0L);
+        feed.subscribe(0L);
+
+        // More changes than a page, the fast subscriber is topped up page by page
+        lastSequence = 5;
+        feed.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(1L)));
+
+        assertTrue(recording.received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), recording.sequences);
+    }
+
+    @Test
+    void testStalledSubscriberIsClosedAfterSendTimeout() throws Exception {
+        properties.setMaxSubscribers(2);
+        emitters.add(new StalledEmitter());
+        emitters.add(new RecordingEmitter(0));
+        feed.subscribe(0L);
+        feed.subscribe(0L);
+
+        lastSequence = 1;
+        feed.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.CREATED, List.of(1L)));
+
+        awaitUntil(() -> feed.subscriberCount() == 1);
+        assertEquals(1, feed.subscriberCount());
+        // Its sender is still stuck in the write, a new subscriber must not add another one
+        assertEquals(1, feed.closingCount());
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class, () -> feed.subscribe(null));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+
+        stalled.countDown();
+        awaitUntil(() -> feed.closingCount() == 0);
+        emitters.add(new RecordingEmitter(0));
+        feed.subscribe(null);
+        assertEquals(2, feed.subscriberCount());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static CarChangeDTO change(long sequence) {
+        return CarChangeDTO.builder().sequence(sequence).type(CarChangeDTO.Type.UPDATED).id(sequence)
+                .changedAt(Instant.EPOCH).build();
+    }
+
+    // A client that stopped reading: the write blocks until the connection is torn down
+    private class StalledEmitter extends SseEmitter {
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                stalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("connection closed");
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch received;
+
+        RecordingEmitter(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .filter(part -> part.getData() instanceof CarChangeDTO)
+                    .forEach(part -> {
+                        sequences.add(((CarChangeDTO) part.getData()).getSequence());
+                        received.countDown();
+                    });
+        }
+    }
+}
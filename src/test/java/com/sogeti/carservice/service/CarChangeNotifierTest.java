@@ -0,0 +1,114 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.config.CacheCoherenceProperties;
+import com.sogeti.carservice.config.CacheConfig;
+import com.sogeti.carservice.dto.CarChangeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CarChangeNotifierTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private Cache carsCache;
+    private ApplicationEventPublisher eventPublisher;
+    private CacheCoherenceProperties properties;
+    private CarChangeNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        carsCache = mock(Cache.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(CacheConfig.CARS_CACHE)).thenReturn(carsCache);
+        properties = new CacheCoherenceProperties();
+        notifier = new CarChangeNotifier(properties, jdbcTemplate, new DataSourceProperties(), cacheManager,
+                eventPublisher, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testChangesAreOnlyBroadcastWhenEnabled() {
+        notifier.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(1L)));
+        verifyNoInteractions(jdbcTemplate);
+
+        properties.setEnabled(true);
+        notifier.onCarChanged(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(1L, 2L)));
+
+        verify(jdbcTemplate).query(eq("select pg_notify(?, ?)"), Mockito.<ResultSetExtractor<Object>>any(), eq("car_changed"),
+                argThat(payload -> ((String) payload).endsWith("|1,2")));
+
+        // Changes of other instances are not sent back
+        notifier.onCarChanged(new CarChangedEvent(null, List.of(3L), true));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testOversizedChangeInvalidatesEverything() {
+        String payload = notifier.payload(new CarChangedEvent(CarChangeDTO.Type.DELETED, LongStream.range(1_000_000, 1_002_000).boxed().toList()));
+
+        assertTrue(payload.endsWith("|" + CarChangeNotifier.ALL));
+    }
+
+    @Test
+    void testNotificationOfAnotherInstanceEvictsItsCars() {
+        notifier.apply("other-instance|3,4");
+
+        verify(carsCache).evict(3L);
+        verify(carsCache).evict(4L);
+        verify(eventPublisher).publishEvent(new CarChangedEvent(null, List.of(3L, 4L), true));
+    }
+
+    @Test
+    void testNotificationOfAnotherInstanceForAllCarsClearsTheCache() {
+        notifier.apply("other-instance|*");
+
+        verify(carsCache).clear();
+        verify(eventPublisher).publishEvent(new CarChangedEvent(null, null, true));
+    }
+
+    @Test
+    void testEvictionsAreRepeatedOnceTheReplicasCaughtUp() {
+        properties.setReplicaLag(Duration.ofSeconds(2));
+
+        notifier.apply("other-instance|3");
+        notifier.apply("other-instance|*");
+        notifier.evictPending(System.nanoTime());
+
+        verify(carsCache, times(1)).evict(3L);
+        verify(carsCache, times(1)).clear();
+
+        notifier.evictPending(System.nanoTime() + Duration.ofSeconds(2).toNanos());
+
+        verify(carsCache, times(2)).evict(3L);
+        verify(carsCache, times(2)).clear();
+        // Only the cache, the local views read the primary
+        verify(eventPublisher, times(2)).publishEvent(any(CarChangedEvent.class));
+    }
+
+    @Test
+    void testOwnNotificationIsIgnored() {
+        String payload = notifier.payload(new CarChangedEvent(CarChangeDTO.Type.UPDATED, List.of(5L)));
+
+        notifier.apply(payload);
+
+        assertEquals(2, payload.split("\\|").length);
+        verifyNoInteractions(carsCache, eventPublisher);
+    }
+}
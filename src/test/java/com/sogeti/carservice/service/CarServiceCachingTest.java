@@ -0,0 +1,130 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.client.IAMFeignClient;
+import com.sogeti.carservice.config.CacheConfig;
+import com.sogeti.carservice.config.TokenCacheProperties;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPatchDTO;
+import com.sogeti.carservice.model.Car;
+import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.security.JwksTokenVerifier;
+import com.sogeti.carservice.security.TokenValidationBatcher;
+import com.sogeti.carservice.security.TokenValidationCache;
+import com.sogeti.carservice.utility.CarMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+// CarServiceImpl behind the Spring cache proxy, CarServiceImplTest calls it directly
+@SpringJUnitConfig
+class CarServiceCachingTest {
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(carRepository);
+        cacheManager.getCache(CacheConfig.CARS_CACHE).clear();
+        when(carRepository.findById(4L)).thenReturn(Optional.of(car(2L, "Swift")));
+    }
+
+    @Test
+    void testGetCarByIdIsServedFromTheCache() {
+        carService.getCarById(4L);
+        CarDTO cached = carService.getCarById(4L);
+
+        assertEquals("Swift", cached.getModel());
+        verify(carRepository, times(1)).findById(4L);
+    }
+
+    @Test
+    void testUpdateCarPutsTheUpdatedCar() {
+        carService.getCarById(4L);
+        when(carRepository.updateById(eq(4L), any(Car.class), eq(2L))).thenReturn(1);
+
+        carService.updateCar(4L, CarDTO.builder().make("Suzuki").model("Vitara").revision(2L).build());
+        CarDTO cached = carService.getCarById(4L);
+
+        assertEquals("Vitara", cached.getModel());
+        assertEquals(3L, cached.getRevision());
+        verify(carRepository, times(1)).findById(4L);
+    }
+
+    @Test
+    void testPatchCarPutsThePatchedCar() {
+        carService.getCarById(4L);
+        when(carRepository.updateFieldsById(eq(4L), anyMap(), isNull())).thenReturn(1);
+        when(carRepository.findById(4L)).thenReturn(Optional.of(car(3L, "Ignis")));
+
+        carService.patchCar(4L, CarPatchDTO.builder().model("Ignis").build());
+        CarDTO cached = carService.getCarById(4L);
+
+        assertEquals("Ignis", cached.getModel());
+        // Once for the first read and once for the patch response, not for the read after the patch
+        verify(carRepository, times(2)).findById(4L);
+        verify(carRepository).updateFieldsById(4L, Map.of("model", "Ignis"), null);
+    }
+
+    @Test
+    void testDeleteCarEvictsTheCar() {
+        carService.getCarById(4L);
+        when(carRepository.deleteByIdAndRevision(4L, null)).thenReturn(1);
+
+        carService.deleteCar(4L);
+        carService.getCarById(4L);
+
+        verify(carRepository, times(2)).findById(4L);
+    }
+
+    private static Car car(Long revision, String model) {
+        return Car.builder().id(4L).make("Suzuki").model(model).version("2022").numberOfDoors(5)
+                .co2Emission(100).grossPrice(18000).nettPrice(17000).revision(revision).build();
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.CARS_CACHE);
+        }
+
+        @Bean
+        CarRepository carRepository() {
+            return mock(CarRepository.class);
+        }
+
+        @Bean
+        CarService carService(CarRepository carRepository) {
+            return new CarServiceImpl(carRepository, Mappers.getMapper(CarMapper.class), mock(IAMFeignClient.class),
+                    new TokenValidationCache(new TokenCacheProperties(), new SimpleMeterRegistry()),
+                    mock(JwksTokenVerifier.class), mock(TokenValidationBatcher.class), new SimpleMeterRegistry(),
+                    mock(ApplicationEventPublisher.class));
+        }
+    }
+}
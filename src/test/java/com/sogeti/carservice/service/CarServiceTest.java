@@ -1,21 +1,41 @@
 package com.sogeti.carservice.service;
 import com.sogeti.carservice.client.IAMFeignClient;
+import com.sogeti.carservice.config.TokenCacheProperties;
+import com.sogeti.carservice.dto.CarChangeDTO;
 import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.dto.CarPageDTO;
+import com.sogeti.carservice.dto.CarPatchDTO;
+import com.sogeti.carservice.dto.CarSearchCriteria;
+import com.sogeti.carservice.dto.CarSearchResultDTO;
+import com.sogeti.carservice.exception.InvalidRequestException;
+import com.sogeti.carservice.exception.PreconditionFailedException;
 import com.sogeti.carservice.exception.TokenValidationException;
 import com.sogeti.carservice.model.Car;
 import com.sogeti.carservice.repository.CarRepository;
+import com.sogeti.carservice.security.JwksTokenVerifier;
+import com.sogeti.carservice.security.TokenValidationBatcher;
+import com.sogeti.carservice.security.TokenValidationCache;
 import com.sogeti.carservice.utility.CarMapper;
 import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +52,22 @@ class CarServiceImplTest {
     @Mock
     private IAMFeignClient iamFeignClient;
 
+    @Mock
+    private JwksTokenVerifier jwksTokenVerifier;
+
+    @Mock
+    private TokenValidationBatcher tokenValidationBatcher;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TokenValidationCache tokenValidationCache =
+            new TokenValidationCache(new TokenCacheProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private CarServiceImpl carService;
 
@@ -56,6 +92,63 @@ class CarServiceImplTest {
         assertEquals(cars.size(), result.size());
     }
 
+    @Test
+    void testGetCarsAfter() {
+        Car carOne = Car.builder().id(3L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).build();
+        Car carTwo = Car.builder().id(5L).make("Ford").model("Mustang").version("2022").numberOfDoors(5)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).build();
+
+        when(carRepository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.ofSize(2))).thenReturn(Arrays.asList(carOne, carTwo));
+        when(carMapper.carToCarDTO(carOne)).thenReturn(CarDTO.builder().id(3L).build());
+
+        CarPageDTO result = carService.getCarsAfter(2L, 1);
+
+        assertEquals(1, result.getCars().size());
+        assertEquals(3L, result.getNextCursor());
+    }
+
+    @Test
+    void testGetCarsAfterLastPage() {
+        Car car = Car.builder().id(3L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).build();
+
+        when(carRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(11))).thenReturn(List.of(car));
+        when(carMapper.carToCarDTO(car)).thenReturn(CarDTO.builder().id(3L).build());
+
+        CarPageDTO result = carService.getCarsAfter(null, 10);
+
+        assertEquals(1, result.getCars().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testSearchCars() {
+        Car car = Car.builder().id(3L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).build();
+        PageRequest expectedRequest = PageRequest.of(0, CarServiceImpl.MAX_PAGE_SIZE,
+                Sort.by(Sort.Direction.DESC, "grossPrice").and(Sort.by("id")));
+
+        when(carRepository.findAll(Mockito.<Specification<Car>>any(), eq(expectedRequest)))
+                .thenReturn(new PageImpl<>(List.of(car), expectedRequest, 1));
+        when(carMapper.carToCarDTO(car)).thenReturn(CarDTO.builder().id(3L).build());
+
+        CarSearchResultDTO result = carService.searchCars(CarSearchCriteria.builder().make("Toyota").maxGrossPrice(25000.0).build(),
+                PageRequest.of(0, 5000, Sort.by(Sort.Direction.DESC, "grossPrice")));
+
+        assertEquals(1, result.getCars().size());
+        assertEquals(1, result.getTotalElements());
+        assertEquals(CarServiceImpl.MAX_PAGE_SIZE, result.getSize());
+    }
+
+    @Test
+    void testSearchCarsRejectsUnknownSort() {
+        assertThrows(InvalidRequestException.class, () -> carService.searchCars(new CarSearchCriteria(),
+                PageRequest.of(0, 20, Sort.by("revision"))));
+
+        verifyNoInteractions(carRepository);
+    }
+
     @Test
     void testCreateCar() {
         Car car = Car.builder().id(1L).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
@@ -69,6 +162,7 @@ class CarServiceImplTest {
 
         CarDTO result = carService.createCar(carDTO);
         assertEquals(carDTO, result);
+        verify(eventPublisher).publishEvent(new CarChangedEvent(CarChangeDTO.Type.CREATED, List.of(1L)));
     }
 
    @Test
@@ -93,22 +187,145 @@ class CarServiceImplTest {
         CarDTO carDTO = CarDTO.builder().id(4L).make("Suzuki").model("Mustang").version("2022").numberOfDoors(5)
                 .co2Emission(100).grossPrice(20000).nettPrice(19000).build();
 
-        when(carRepository.findById(4L)).thenReturn(Optional.of(existingCar));
-        when(carRepository.save(any())).thenReturn(existingCar);
+        when(carMapper.carDTOToCar(carDTO)).thenReturn(existingCar);
+        when(carRepository.updateById(4L, existingCar, null)).thenReturn(1);
+        when(carRepository.findRevisionById(4L)).thenReturn(3L);
         when(carMapper.carToCarDTO(existingCar)).thenReturn(carDTO);
 
         CarDTO result = carService.updateCar(4L, carDTO);
 
         assertEquals(carDTO, result);
+        assertEquals(3L, existingCar.getRevision());
+        verify(carRepository, never()).findById(anyLong());
+        verify(carRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdateCarNotFound() {
+        CarDTO carDTO = CarDTO.builder().id(9L).make("Suzuki").model("Swift").build();
+        Car car = Car.builder().id(9L).make("Suzuki").model("Swift").build();
+
+        when(carMapper.carDTOToCar(carDTO)).thenReturn(car);
+        when(carRepository.updateById(9L, car, null)).thenReturn(0);
+
+        assertNull(carService.updateCar(9L, carDTO));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testUpdateCarWithRevisionSkipsRead() {
+        CarDTO carDTO = CarDTO.builder().id(4L).make("Suzuki").model("Swift").revision(2L).build();
+        Car car = Car.builder().id(4L).make("Suzuki").model("Swift").build();
+
+        when(carMapper.carDTOToCar(carDTO)).thenReturn(car);
+        when(carRepository.updateById(4L, car, 2L)).thenReturn(1);
+
+        carService.updateCar(4L, carDTO);
+
+        assertEquals(3L, car.getRevision());
+        verify(carRepository, never()).findRevisionById(anyLong());
+    }
+
+    @Test
+    void testUpdateCarWithStaleRevision() {
+        CarDTO carDTO = CarDTO.builder().id(4L).make("Suzuki").model("Swift").revision(2L).build();
+        Car car = Car.builder().id(4L).make("Suzuki").model("Swift").build();
+
+        when(carMapper.carDTOToCar(carDTO)).thenReturn(car);
+        when(carRepository.updateById(4L, car, 2L)).thenReturn(0);
+        when(carRepository.existsById(4L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> carService.updateCar(4L, carDTO));
+    }
+
+    @Test
+    void testUpdateCarWithAnyRevision() {
+        CarDTO carDTO = CarDTO.builder().id(4L).make("Suzuki").model("Swift").revision(CarDTO.ANY_REVISION).build();
+        Car car = Car.builder().id(4L).make("Suzuki").model("Swift").build();
+
+        when(carMapper.carDTOToCar(carDTO)).thenReturn(car);
+        when(carRepository.updateById(4L, car, null)).thenReturn(1);
+        // Read after the update, the revision the request expected is unknown
+        when(carRepository.findRevisionById(4L)).thenReturn(7L);
+
+        carService.updateCar(4L, carDTO);
+
+        assertEquals(7L, car.getRevision());
+    }
+
+    @Test
+    void testUpdateMissingCarWithAnyRevision() {
+        CarDTO carDTO = CarDTO.builder().id(9L).make("Suzuki").model("Swift").revision(CarDTO.ANY_REVISION).build();
+        Car car = Car.builder().id(9L).make("Suzuki").model("Swift").build();
+
+        when(carMapper.carDTOToCar(carDTO)).thenReturn(car);
+        when(carRepository.updateById(9L, car, null)).thenReturn(0);
+
+        assertThrows(PreconditionFailedException.class, () -> carService.updateCar(9L, carDTO));
+    }
+
+    @Test
+    void testPatchMissingCarWithAnyRevision() {
+        when(carRepository.findById(9L)).thenReturn(Optional.empty());
+
+        CarPatchDTO emptyPatch = CarPatchDTO.builder().revision(CarDTO.ANY_REVISION).build();
+
+        assertThrows(PreconditionFailedException.class, () -> carService.patchCar(9L, emptyPatch));
+    }
+
+    @Test
+    void testPatchCarUpdatesOnlyGivenFields() {
+        Car patchedCar = Car.builder().id(4L).make("Suzuki").model("Swift").version("2022").numberOfDoors(5)
+                .co2Emission(100).grossPrice(18000).nettPrice(19000).build();
+        CarDTO patchedDTO = CarDTO.builder().id(4L).make("Suzuki").model("Swift").version("2022").numberOfDoors(5)
+                .co2Emission(100).grossPrice(18000).nettPrice(19000).build();
+
+        when(carRepository.updateFieldsById(eq(4L), anyMap(), isNull())).thenReturn(1);
+        when(carRepository.findById(4L)).thenReturn(Optional.of(patchedCar));
+        when(carMapper.carToCarDTO(patchedCar)).thenReturn(patchedDTO);
+
+        CarDTO result = carService.patchCar(4L, CarPatchDTO.builder().model("Swift").grossPrice(18000.0).build());
+
+        assertEquals(patchedDTO, result);
+        verify(carRepository).updateFieldsById(4L, Map.of("model", "Swift", "grossPrice", 18000.0), null);
     }
 
     @Test
     void testDeleteCar() {
         Long carId = 1L;
+        when(carRepository.deleteByIdAndRevision(carId, null)).thenReturn(1);
 
         assertDoesNotThrow(() -> carService.deleteCar(carId));
 
-        verify(carRepository, times(1)).deleteById(carId);
+        verify(carRepository, times(1)).deleteByIdAndRevision(carId, null);
+        verify(eventPublisher).publishEvent(new CarChangedEvent(CarChangeDTO.Type.DELETED, List.of(carId)));
+    }
+
+    @Test
+    void testDeleteUnknownCarIsNoChange() {
+        when(carRepository.deleteByIdAndRevision(9L, null)).thenReturn(0);
+
+        assertDoesNotThrow(() -> carService.deleteCar(9L));
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testDeleteCarWithStaleRevision() {
+        when(carRepository.deleteByIdAndRevision(1L, 5L)).thenReturn(0);
+        when(carRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> carService.deleteCar(1L, 5L));
+    }
+
+    @Test
+    void testDeleteCarWithAnyRevision() {
+        when(carRepository.deleteByIdAndRevision(1L, null)).thenReturn(1);
+        when(carRepository.deleteByIdAndRevision(9L, null)).thenReturn(0);
+
+        assertDoesNotThrow(() -> carService.deleteCar(1L, CarDTO.ANY_REVISION));
+        assertThrows(PreconditionFailedException.class, () -> carService.deleteCar(9L, CarDTO.ANY_REVISION));
+        verify(carRepository, never()).existsById(anyLong());
     }
 
     @Test
@@ -133,4 +350,86 @@ class CarServiceImplTest {
 
         assertEquals("Token validation failed", exception.getMessage());
     }
+
+    @Test
+    void testIsValidTokenCachesResult() {
+        String token = "cachedToken";
+        when(iamFeignClient.validateToken("Bearer " + token)).thenReturn(new ResponseEntity<>("Valid token", HttpStatus.OK));
+
+        carService.isValidToken(token);
+        carService.isValidToken(token);
+
+        verify(iamFeignClient, times(1)).validateToken("Bearer " + token);
+    }
+
+    @Test
+    void testIsValidTokenCachesRejection() {
+        String token = "rejectedToken";
+        when(iamFeignClient.validateToken("Bearer " + token)).thenReturn(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+
+        assertThrows(TokenValidationException.class, () -> carService.isValidToken(token));
+        assertThrows(TokenValidationException.class, () -> carService.isValidToken(token));
+
+        verify(iamFeignClient, times(1)).validateToken("Bearer " + token);
+        assertEquals(1, meterRegistry.timer("iam.token.validation.remote", "outcome", "invalid").count());
+    }
+
+    @Test
+    void testIsValidTokenDoesNotCacheIamFailure() {
+        String token = "retriedToken";
+        when(iamFeignClient.validateToken("Bearer " + token)).thenThrow(FeignException.class)
+                .thenReturn(new ResponseEntity<>("Valid token", HttpStatus.OK));
+
+        assertThrows(TokenValidationException.class, () -> carService.isValidToken(token));
+        assertTrue(carService.isValidToken(token));
+        assertEquals(1, meterRegistry.timer("iam.token.validation.remote", "outcome", "error").count());
+        assertEquals(1, meterRegistry.timer("iam.token.validation.remote", "outcome", "valid").count());
+    }
+
+    @Test
+    void testIsValidTokenUsesLocalVerification() {
+        String token = "signedToken";
+        when(jwksTokenVerifier.isEnabled()).thenReturn(true);
+        when(jwksTokenVerifier.verify(token)).thenReturn(Optional.of(true));
+
+        assertTrue(carService.isValidToken(token));
+
+        verify(iamFeignClient, never()).validateToken(anyString());
+    }
+
+    @Test
+    void testIsValidTokenFallsBackToIamWithoutKeys() {
+        String token = "unverifiableToken";
+        when(jwksTokenVerifier.isEnabled()).thenReturn(true);
+        when(jwksTokenVerifier.verify(token)).thenReturn(Optional.empty());
+        when(iamFeignClient.validateToken("Bearer " + token)).thenReturn(new ResponseEntity<>("Valid token", HttpStatus.OK));
+
+        assertTrue(carService.isValidToken(token));
+
+        verify(iamFeignClient, times(1)).validateToken("Bearer " + token);
+    }
+
+    @Test
+    void testIsValidTokenUsesBatcherWhenEnabled() {
+        String token = "batchedToken";
+        when(tokenValidationBatcher.isEnabled()).thenReturn(true);
+        when(tokenValidationBatcher.validate(token)).thenReturn(true);
+
+        assertTrue(carService.isValidToken(token));
+
+        verify(iamFeignClient, never()).validateToken(anyString());
+    }
+
+    @Test
+    void testIsValidTokenMapsBatcherFailure() {
+        String token = "badBatchToken";
+        when(tokenValidationBatcher.isEnabled()).thenReturn(true);
+        when(tokenValidationBatcher.validate(token)).thenThrow(new IllegalStateException("malformed bulk answer"))
+                .thenReturn(true);
+
+        assertThrows(TokenValidationException.class, () -> carService.isValidToken(token));
+        // The failure was not cached as a rejection
+        assertTrue(carService.isValidToken(token));
+        assertEquals(1, meterRegistry.timer("iam.token.validation.remote", "outcome", "error").count());
+    }
 }
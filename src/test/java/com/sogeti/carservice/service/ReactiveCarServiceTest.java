@@ -0,0 +1,105 @@
+package com.sogeti.carservice.service;
+
+import com.sogeti.carservice.client.ReactiveIamClient;
+import com.sogeti.carservice.config.TokenCacheProperties;
+import com.sogeti.carservice.dto.CarDTO;
+import com.sogeti.carservice.exception.PreconditionFailedException;
+import com.sogeti.carservice.exception.TokenValidationException;
+import com.sogeti.carservice.model.Car;
+import com.sogeti.carservice.repository.ReactiveCarRepository;
+import com.sogeti.carservice.security.JwksTokenVerifier;
+import com.sogeti.carservice.security.TokenValidationCache;
+import com.sogeti.carservice.utility.CarMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReactiveCarServiceTest {
+
+    private ReactiveCarRepository carRepository;
+    private ReactiveIamClient iamClient;
+    private ReactiveCarServiceImpl carService;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = mock(ReactiveCarRepository.class);
+        iamClient = mock(ReactiveIamClient.class);
+        carService = new ReactiveCarServiceImpl(carRepository, Mappers.getMapper(CarMapper.class), iamClient,
+                new TokenValidationCache(new TokenCacheProperties(), new SimpleMeterRegistry()), mock(JwksTokenVerifier.class));
+    }
+
+    @Test
+    void testGetAllCarsStreamsInIdOrder() {
+        when(carRepository.findAllByOrderByIdAsc()).thenReturn(Flux.just(car(1L), car(2L)));
+
+        StepVerifier.create(carService.getAllCars(), 1)
+                .expectNextMatches(carDTO -> carDTO.getId() == 1L)
+                .thenRequest(1)
+                .expectNextMatches(carDTO -> carDTO.getId() == 2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetCarsAfter() {
+        when(carRepository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.ofSize(2))).thenReturn(Flux.just(car(3L), car(5L)));
+
+        StepVerifier.create(carService.getCarsAfter(2L, 1))
+                .expectNextMatches(page -> page.getCars().size() == 1 && page.getNextCursor() == 3L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateCarWithStaleRevision() {
+        when(carRepository.updateById(eq(1L), any(Car.class), eq(3L))).thenReturn(Mono.empty());
+        when(carRepository.existsById(1L)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(carService.updateCar(1L, CarDTO.builder().make("Ford").revision(3L).build()))
+                .verifyError(PreconditionFailedException.class);
+    }
+
+    @Test
+    void testDeleteMissingCarCompletes() {
+        when(carRepository.deleteByIdAndRevision(1L, 3L)).thenReturn(Mono.just(0));
+        when(carRepository.existsById(1L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(carService.deleteCar(1L, 3L)).verifyComplete();
+    }
+
+    @Test
+    void testDeleteMissingCarWithAnyRevisionFails() {
+        when(carRepository.deleteByIdAndRevision(1L, null)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(carService.deleteCar(1L, CarDTO.ANY_REVISION))
+                .verifyError(PreconditionFailedException.class);
+    }
+
+    @Test
+    void testIsValidTokenCachesResult() {
+        when(iamClient.validateToken("Bearer validToken")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(carService.isValidToken("validToken")).expectNext(true).verifyComplete();
+        StepVerifier.create(carService.isValidToken("validToken")).expectNext(true).verifyComplete();
+
+        verify(iamClient, times(1)).validateToken("Bearer validToken");
+    }
+
+    @Test
+    void testIsValidTokenRejection() {
+        when(iamClient.validateToken("Bearer invalidToken")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(carService.isValidToken("invalidToken")).verifyError(TokenValidationException.class);
+    }
+
+    private static Car car(Long id) {
+        return Car.builder().id(id).make("Toyota").model("Camry").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(20000).nettPrice(19000).revision(0L).build();
+    }
+}
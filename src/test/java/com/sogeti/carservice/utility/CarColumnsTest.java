@@ -0,0 +1,74 @@
+package com.sogeti.carservice.utility;
+
+import com.sogeti.carservice.dto.CarDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CarColumnsTest {
+
+    @Test
+    void testColumnsAreDictionaryEncoded() {
+        CarColumns columns = CarColumns.builder()
+                .add(car(1L, "Toyota", 20000))
+                .add(car(2L, "Ford", 30000))
+                .add(car(3L, "Toyota", 40000))
+                .add(car(4L, null, 50000))
+                .build();
+
+        assertEquals(4, columns.size());
+        assertEquals(3, columns.makeDictionary().size());
+        assertEquals(columns.make(0), columns.make(2));
+        assertEquals("Ford", columns.makeDictionary().get(columns.make(1)));
+        assertNull(columns.makeDictionary().get(columns.make(3)));
+        assertEquals(40000, columns.grossPrice(2));
+        assertEquals(3L, columns.id(2));
+    }
+
+    @Test
+    void testColumnsGrowBeyondTheirInitialCapacity() {
+        CarColumns.Builder builder = CarColumns.builder();
+        for (long id = 1; id <= 5000; id++) {
+            builder.add(car(id, "Make" + (id % 7), id));
+        }
+
+        CarColumns columns = builder.build();
+
+        assertEquals(5000, columns.size());
+        assertEquals(7, columns.makeDictionary().size());
+        assertEquals(4999.0, columns.grossPrice(4998));
+        assertEquals("Make" + (4321 % 7), columns.makeDictionary().get(columns.make(4320)));
+        assertEquals(4, columns.numberOfDoors(4999));
+    }
+
+    @Test
+    void testWithChangesReplacesAppendsAndRemovesRows() {
+        CarColumns columns = CarColumns.builder()
+                .add(car(1L, "Toyota", 20000))
+                .add(car(2L, "Ford", 30000))
+                .add(car(3L, "Opel", 40000))
+                .build();
+
+        CarColumns changed = columns.withChanges(List.of(2L, 3L, 5L, 4L),
+                List.of(car(5L, "Kia", 60000), car(2L, "Toyota", 35000), car(4L, "Ford", 50000)));
+
+        assertEquals(4, changed.size());
+        assertEquals(List.of(1L, 2L, 4L, 5L), List.of(changed.id(0), changed.id(1), changed.id(2), changed.id(3)));
+        assertEquals(35000, changed.grossPrice(1));
+        assertEquals(changed.make(0), changed.make(1));
+        assertEquals("Kia", changed.makeDictionary().get(changed.make(3)));
+        // Opel is no longer used by any row
+        assertEquals(List.of("Toyota", "Ford", "Kia"), changed.makeDictionary());
+        // The original is left as it was
+        assertEquals(3, columns.size());
+        assertEquals(30000, columns.grossPrice(1));
+    }
+
+    private static CarDTO car(Long id, String make, double grossPrice) {
+        return CarDTO.builder().id(id).make(make).model("Model").version("2022").numberOfDoors(4)
+                .co2Emission(100).grossPrice(grossPrice).nettPrice(grossPrice * 0.95).build();
+    }
+}
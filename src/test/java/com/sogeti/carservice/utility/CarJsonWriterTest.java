@@ -0,0 +1,81 @@
+package com.sogeti.carservice.utility;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sogeti.carservice.dto.CarDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarJsonWriterTest {
+
+    // Same builder Spring Boot uses for the HTTP message converters
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void testCarListMatchesJacksonByteForByte() throws IOException {
+        List<CarDTO> cars = new ArrayList<>(List.of(
+                car(1L, "Toyota", 20000, 19000.5, 101.25),
+                car(2L, "Citroën \"C4\" \\ e-Tense", 1e7, 0.1, -0.0),
+                car(null, "Tab\tnew\nline\u0001\u001f\u007f/€ 🚗", 123456.789, 1e-5, Double.NaN),
+                CarDTO.builder().build()));
+        cars.add(null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CarJsonWriter.writeCars(cars, out);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(cars), out.toByteArray(), out::toString);
+    }
+
+    @Test
+    void testLargeListCrossesBufferBoundaries() throws IOException {
+        List<CarDTO> cars = IntStream.range(0, 2000)
+                .mapToObj(i -> car((long) i, "Make " + i + " ü", i * 1.5, i, i % 7 == 0 ? Long.MAX_VALUE : i))
+                .toList();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CarJsonWriter.writeCars(cars, out);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(cars), out.toByteArray());
+    }
+
+    @Test
+    void testSingleCarMatchesJackson() throws IOException {
+        CarDTO car = car(7L, "Ford", 30000, 28000, 95);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CarJsonWriter.writeCar(car, out);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(car), out.toByteArray());
+    }
+
+    @Test
+    void testColumnsHoldTheValuesInListOrder() throws IOException {
+        List<CarDTO> cars = List.of(car(1L, "Toyota", 20000, 19000, 100), car(2L, "Ford", 30000.5, 28000, 95));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CarJsonWriter.writeColumns(cars, out);
+        Map<String, List<Object>> columns = objectMapper.readValue(out.toByteArray(), new TypeReference<>() {
+        });
+
+        assertEquals(List.of("id", "make", "model", "version", "numberOfDoors", "co2Emission", "grossPrice",
+                "nettPrice", "revision"), new ArrayList<>(columns.keySet()));
+        assertEquals(Arrays.asList("Toyota", "Ford"), columns.get("make"));
+        assertEquals(List.of(20000.0, 30000.5), columns.get("grossPrice"));
+        assertEquals(Arrays.asList(3, 3), columns.get("revision"));
+    }
+
+    private static CarDTO car(Long id, String make, double grossPrice, double nettPrice, double co2Emission) {
+        return CarDTO.builder().id(id).make(make).model("Model").version("2022").numberOfDoors(4)
+                .co2Emission(co2Emission).grossPrice(grossPrice).nettPrice(nettPrice).revision(3L).build();
+    }
+}